@@ -0,0 +1,83 @@
+package com.example.bmslookup.benchmark;
+
+import com.example.bmslookup.audit.AuditLogger;
+import com.example.bmslookup.audit.AuditStore;
+import com.example.bmslookup.audit.AuditWriter;
+import com.example.bmslookup.dto.GenericRequest;
+import com.example.bmslookup.dto.GenericResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuditLogger under contention: 8 request threads logging into one
+ * AuditWriter ring while the writer thread encodes, writes and indexes.
+ * Throughput includes back-pressure, so a slower writer shows up here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AuditLoggerBenchmark {
+
+    @Param({"true", "false"})
+    private boolean storeEnabled;
+
+    private AnnotationConfigApplicationContext context;
+    private AuditLogger auditLogger;
+    private File directory;
+    private GenericRequest request;
+    private GenericResponse response;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("audit-bench").toFile();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("app.audit.file", new File(directory, "audit.log").getPath());
+        properties.put("app.audit.store.enabled", String.valueOf(storeEnabled));
+        properties.put("app.audit.store.directory", new File(directory, "store").getPath());
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(AuditStore.class, AuditWriter.class, AuditLogger.class);
+        context.refresh();
+        auditLogger = context.getBean(AuditLogger.class);
+
+        request = Payloads.request("i", Payloads.bulkInsert(5));
+        response = GenericResponse.success("Records inserted successfully");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void logAudit() {
+        auditLogger.logAudit(request, response, 12, "10.0.0.1");
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bmslookup.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC stand-in: a forward-only ResultSet over rows held in memory.
+ * Implements the calls RowMappers make (next, getObject, getString,
+ * getMetaData, wasNull); anything else throws UnsupportedOperationException.
+ * {@link #rewind()} lets one instance be replayed across benchmark invocations.
+ */
+public class InMemoryResultSet {
+
+    private final String[] columns;
+    private final int[] types;
+    private final List<Object[]> rows;
+    private final ResultSet resultSet;
+    private final ResultSetMetaData metaData;
+    private int cursor = -1;
+    private Object lastValue;
+
+    public InMemoryResultSet(String[] columns, int[] types, List<Object[]> rows) {
+        this.columns = columns;
+        this.types = types;
+        this.rows = rows;
+        this.metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return this.columns.length;
+                        case "getColumnName":
+                        case "getColumnLabel":
+                            return this.columns[(Integer) args[0] - 1];
+                        case "getColumnType":
+                            return this.types[(Integer) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        this.resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++cursor < this.rows.size();
+                        case "getMetaData":
+                            return metaData;
+                        case "getObject":
+                            return value(args[0]);
+                        case "getString":
+                            Object value = value(args[0]);
+                            return value == null ? null : value.toString();
+                        case "wasNull":
+                            return lastValue == null;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Lookup-table shaped rows (ID, NAME_AR, NAME_EN, CODE, IS_ACTIVE, CREATED_AT, UPDATED_AT).
+     *
+     * @param count number of rows
+     * @return result set stand-in
+     */
+    public static InMemoryResultSet lookupRows(int count) {
+        String[] columns = {"ID", "NAME_AR", "NAME_EN", "CODE", "IS_ACTIVE", "CREATED_AT", "UPDATED_AT"};
+        int[] types = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.SMALLINT,
+                Types.TIMESTAMP, Types.TIMESTAMP};
+        Timestamp created = Timestamp.valueOf("2024-01-15 10:30:00");
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{i, "محافظة " + i, "Governorate " + i, "GOV" + i, 1, created,
+                    i % 3 == 0 ? null : created});
+        }
+        return new InMemoryResultSet(columns, types, rows);
+    }
+
+    public ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    /**
+     * Moves the cursor back before the first row.
+     */
+    public void rewind() {
+        cursor = -1;
+    }
+
+    private Object value(Object column) {
+        int index = column instanceof Integer ? (Integer) column - 1 : indexOf((String) column);
+        lastValue = rows.get(cursor)[index];
+        return lastValue;
+    }
+
+    private int indexOf(String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: " + column);
+    }
+}
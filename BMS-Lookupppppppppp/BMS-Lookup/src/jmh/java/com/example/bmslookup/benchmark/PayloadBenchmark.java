@@ -0,0 +1,94 @@
+package com.example.bmslookup.benchmark;
+
+import com.example.bmslookup.dto.GenericRequest;
+import com.example.bmslookup.dto.GenericResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.datatype.DatatypeFactory;
+import java.io.ByteArrayOutputStream;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload handling: Jackson parsing of enrollment payloads, the streaming
+ * listName scan, and JAXB marshalling of GenericResponse the way Spring-WS
+ * does it (shared JAXBContext, new Marshaller per response).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    /**
+     * Family size of the HOF enrollment payload.
+     */
+    @Param({"1", "8"})
+    private int members;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String hofPayload;
+    private String bulkPayload;
+    private JAXBContext jaxbContext;
+    private GenericResponse response;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+
+    @Setup
+    public void setup() throws Exception {
+        hofPayload = Payloads.hofEnrollment(members);
+        bulkPayload = Payloads.bulkInsert(100);
+        jaxbContext = JAXBContext.newInstance(GenericResponse.class);
+
+        StringBuilder data = new StringBuilder("[");
+        for (int i = 1; i <= 30; i++) {
+            if (i > 1) {
+                data.append(',');
+            }
+            data.append("{\"ID\":").append(i).append(",\"NAME_EN\":\"Governorate ").append(i)
+                    .append("\",\"CODE\":\"GOV").append(i).append("\"}");
+        }
+        response = GenericResponse.successWithData("Lookup completed successfully", data.append(']').toString());
+        response.setTimestamp(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()));
+    }
+
+    @Benchmark
+    public JsonNode parseHofEnrollment() throws Exception {
+        return objectMapper.readTree(hofPayload);
+    }
+
+    @Benchmark
+    public JsonNode parseBulkInsert() throws Exception {
+        return objectMapper.readTree(bulkPayload);
+    }
+
+    @Benchmark
+    public String scanListName() {
+        // Fresh request each time: getListName caches its result
+        return new GenericRequest(null, "1", "hof", hofPayload).getListName();
+    }
+
+    @Benchmark
+    public int marshalResponse() throws JAXBException {
+        out.reset();
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.marshal(response, out);
+        return out.size();
+    }
+}
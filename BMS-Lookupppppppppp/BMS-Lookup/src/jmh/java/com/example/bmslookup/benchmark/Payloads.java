@@ -0,0 +1,89 @@
+package com.example.bmslookup.benchmark;
+
+import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.dto.GenericRequest;
+
+/**
+ * Representative request payloads shared by the benchmarks.
+ */
+public final class Payloads {
+
+    public static final String LOOKUP = "{\"listName\":\"Governorate\"}";
+
+    public static final String LOOKUP_WITH_CRITERIA =
+            "{\"listName\":\"City\",\"criteria\":{\"governorate_id\":\"3\",\"is_active\":1,\"name_en\":\"Port Said\"}}";
+
+    private Payloads() {
+    }
+
+    /**
+     * Header that passes GGHeader.validate.
+     */
+    public static GGHeader validHeader() {
+        return new GGHeader("1", "16", "1", "1", "2970430001808", "BMS-LOOKUP-01", "1");
+    }
+
+    /**
+     * Header that fails on the last checked field, so validate walks every rule.
+     */
+    public static GGHeader headerInvalidAtEnd() {
+        return new GGHeader("1", "16", "1", "1", "2970430001808", "BMS-LOOKUP-01", "9");
+    }
+
+    public static GenericRequest request(String indicator, String jsonPayload) {
+        return new GenericRequest(validHeader(), "1", indicator, jsonPayload);
+    }
+
+    /**
+     * Bulk insert payload with the given number of lookup rows.
+     */
+    public static String bulkInsert(int rows) {
+        StringBuilder json = new StringBuilder("{\"listName\":\"City\",\"list\":[");
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(i)
+                    .append("\",\"name_ar\":\"مدينة ").append(i)
+                    .append("\",\"name_en\":\"City ").append(i)
+                    .append("\",\"governorate_id\":\"").append(i % 27 + 1)
+                    .append("\",\"is_active\":true}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * HOF enrollment payload: one family of the given size, each member with
+     * one contact and one employment.
+     */
+    public static String hofEnrollment(int members) {
+        StringBuilder json = new StringBuilder("{\"listName\":\"beneficiary\",\"hofData\":[");
+        for (int i = 1; i <= members; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            String id = "B" + (100000 + i);
+            json.append("{\"id\":\"").append(id).append('"')
+                    .append(",\"firstName\":\"Ahmed\",\"lastName\":\"Hassan\",\"fullName\":\"Ahmed Mohamed Hassan\"")
+                    .append(",\"dob\":\"1985-04-12\",\"gender\":\"M\",\"mobile\":\"0100000").append(1000 + i).append('"')
+                    .append(",\"nationality\":\"EG\",\"nationalId\":\"2850412").append(1000000 + i).append('"')
+                    .append(",\"email\":\"member").append(i).append("@example.com\"")
+                    .append(",\"familyId\":\"F100001\",\"relation\":\"").append(i == 1 ? "HOF" : "CHILD").append('"')
+                    .append(",\"previousBeneficiaryId\":null,\"medicalConditions\":null")
+                    .append(",\"contacts\":[{\"id\":\"C").append(i).append("\",\"beneficiaryId\":\"").append(id)
+                    .append("\",\"type\":\"MOBILE\",\"value\":\"0100000").append(1000 + i).append("\"}]")
+                    .append(",\"employments\":[{\"id\":\"E").append(i).append("\",\"beneficiaryId\":\"").append(id)
+                    .append("\",\"netIncome\":5400.5,\"jobDescription\":\"Accountant\",\"job\":\"12\"")
+                    .append(",\"employerGovernerate\":\"3\",\"companySocialInsuranceId\":\"SI-99812\"}]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Pretty-printed JSON with trailing commas and blank lines, as sent by some channels.
+     */
+    public static String messyJson() {
+        return "{\n  \"listName\": \"City\",\n\n  \"criteria\": {\n    \"governorate_id\": \"3\",\n"
+                + "    \"is_active\": 1,   \n  },\n  \"list\": [\n    {\"id\": \"1\", \"name_en\": \"Cairo\",},\n  ],\n}\n";
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.bmslookup.benchmark;
+
+import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.util.TableValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request validation: table whitelist and GGHeader rules.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RequestValidationBenchmark {
+
+    private final TableValidator tableValidator = new TableValidator();
+    private final GGHeader validHeader = Payloads.validHeader();
+    private final GGHeader invalidHeader = Payloads.headerInvalidAtEnd();
+
+    @Benchmark
+    public boolean isValidTableAlias() {
+        return tableValidator.isValidTable("City");
+    }
+
+    @Benchmark
+    public boolean isValidTableUnknown() {
+        return tableValidator.isValidTable("bms_Unknown_lkp");
+    }
+
+    @Benchmark
+    public GGHeader.ValidationResult validateHeader() {
+        return validHeader.validate();
+    }
+
+    @Benchmark
+    public GGHeader.ValidationResult validateHeaderInvalid() {
+        return invalidHeader.validate();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bmslookup.service;
+
+import com.example.bmslookup.benchmark.InMemoryResultSet;
+import com.example.bmslookup.benchmark.Payloads;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LookupService hot paths: JSON cleanup, SQL building and row mapping.
+ * Lives in the service package to reach the package-private helpers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LookupServiceBenchmark {
+
+    private final LookupService lookupService = new LookupService();
+    private String messyJson;
+    private JsonNode insertRecord;
+    private JsonNode criteria;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        messyJson = Payloads.messyJson();
+        insertRecord = mapper.readTree(Payloads.bulkInsert(1)).get("list").get(0);
+        criteria = mapper.readTree(Payloads.LOOKUP_WITH_CRITERIA).get("criteria");
+    }
+
+    /**
+     * Result set sized like a small lookup table and like a large one.
+     */
+    @State(Scope.Thread)
+    public static class Rows {
+        @Param({"30", "1000"})
+        private int count;
+
+        private final LookupService.MapRowMapper rowMapper = new LookupService.MapRowMapper();
+        private InMemoryResultSet resultSet;
+
+        @Setup
+        public void setup() {
+            resultSet = InMemoryResultSet.lookupRows(count);
+        }
+    }
+
+    @Benchmark
+    public void mapRows(Rows rows, Blackhole blackhole) throws SQLException {
+        rows.resultSet.rewind();
+        ResultSet rs = rows.resultSet.getResultSet();
+        int rowNum = 0;
+        while (rs.next()) {
+            blackhole.consume(rows.rowMapper.mapRow(rs, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public String cleanJson() {
+        return lookupService.cleanJson(messyJson);
+    }
+
+    @Benchmark
+    public String buildInsertQuery() {
+        return lookupService.buildInsertQuery("GDEV1T_UHI_DATA.bms_City_lkp", insertRecord);
+    }
+
+    @Benchmark
+    public String buildSelectQuery() {
+        return lookupService.buildSelectQuery("GDEV1T_UHI_DATA.bms_City_lkp", criteria);
+    }
+}
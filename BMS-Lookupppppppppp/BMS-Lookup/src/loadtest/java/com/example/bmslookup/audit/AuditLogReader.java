@@ -0,0 +1,314 @@
+package com.example.bmslookup.audit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads audit records back from audit.log text files (plain or rotated .gz) and
+ * from audit store segments (.seg, .seg.gz), for offline tools such as AuditReplay.
+ * Lives in the audit package to reach AuditSegment's package-private record reader;
+ * files are only read, so it is safe to point at a running service's log directory.
+ *
+ * Text lines carry fewer fields than segments: channel, channelRequestId, the raw
+ * indicator and the request id are not written to audit.log, so they are left null.
+ * A text record runs from its "AUDIT: ", "AUDIT_ERROR: " or "AUDIT_VALIDATION: "
+ * prefix to the next one, since payloads and messages may span several lines.
+ *
+ * With the audit store enabled, AuditWriter writes every record to both audit.log
+ * and a segment, so a text record that matches a segment record on timestamp,
+ * correlationId and operationType is dropped as a copy; the segment record is kept
+ * since it has more fields.
+ */
+public final class AuditLogReader {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final String SEPARATOR = " | ";
+    private static final String SEGMENT_SUFFIX = AuditSegment.DATA_SUFFIX;
+    private static final String COMPRESSED_SEGMENT_SUFFIX = AuditSegment.DATA_SUFFIX + AuditSegment.COMPRESSED_SUFFIX;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int SEGMENT_BATCH = 1024;
+    // Types ordered so the longer prefixes are tried first
+    private static final List<String> TYPES = Arrays.asList(
+            AuditRecord.TYPE_VALIDATION, AuditRecord.TYPE_ERROR, AuditRecord.TYPE_AUDIT);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // Start of a text record: type prefix followed by its timestamp
+    private static final Pattern RECORD_START =
+            Pattern.compile("(AUDIT_VALIDATION|AUDIT_ERROR|AUDIT): \\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}");
+    private static final String UNPARSABLE = "unparsable text record";
+    private static final String DUPLICATE = "text record also in a segment";
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Reads every record from the given files and directories, ordered by timestamp.
+     * Directories are scanned (not recursively) for segments and audit.log files.
+     *
+     * @param inputs  files or directories
+     * @param zone    time zone the text timestamps were written in
+     * @param skipped incremented per reason ("unparsable text record", "text record also in a segment")
+     *                for each text record that was skipped
+     * @return records, oldest first
+     */
+    public static List<AuditRecord> read(List<File> inputs, ZoneId zone, Map<String, Long> skipped) throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        List<AuditRecord> textRecords = new ArrayList<>();
+        for (File input : inputs) {
+            File[] files = input.isDirectory() ? input.listFiles() : new File[]{input};
+            if (files == null) {
+                throw new IOException("Cannot list " + input);
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPRESSED_SEGMENT_SUFFIX)) {
+                    readSegment(file, records);
+                } else if (file.isFile() && (!input.isDirectory() || name.startsWith("audit"))) {
+                    readText(file, zone, textRecords, skipped);
+                }
+            }
+        }
+        addUnlessInSegment(textRecords, records, skipped);
+        records.sort(Comparator.comparingLong(AuditRecord::getTimestamp));
+        return records;
+    }
+
+    /**
+     * Adds the text records that have no copy among the segment records. Copies are
+     * matched one to one, so distinct records that share a key (e.g. batch items
+     * audited in the same millisecond) are all kept.
+     */
+    private static void addUnlessInSegment(List<AuditRecord> textRecords, List<AuditRecord> records,
+                                           Map<String, Long> skipped) {
+        if (records.isEmpty()) {
+            records.addAll(textRecords);
+            return;
+        }
+        Map<List<Object>, Integer> inSegments = new HashMap<>();
+        for (AuditRecord record : records) {
+            inSegments.merge(key(record), 1, Integer::sum);
+        }
+        for (AuditRecord record : textRecords) {
+            List<Object> key = key(record);
+            Integer remaining = inSegments.get(key);
+            if (remaining != null && remaining > 0) {
+                inSegments.put(key, remaining - 1);
+                skipped.merge(DUPLICATE, 1L, Long::sum);
+            } else {
+                records.add(record);
+            }
+        }
+    }
+
+    private static List<Object> key(AuditRecord record) {
+        return Arrays.asList(record.getTimestamp(), Objects.toString(record.getCorrelationId(), ""),
+                Objects.toString(record.getOperationType(), ""));
+    }
+
+    /**
+     * Parses one audit.log record, which may span several lines; any prefix before
+     * the record type (e.g. a log pattern) is ignored.
+     *
+     * @return the record, or null if the text is not an audit record or its payload does not parse
+     */
+    public static AuditRecord parseLine(String line, ZoneId zone) {
+        for (String type : TYPES) {
+            int start = line.indexOf(type + ": ");
+            if (start >= 0) {
+                try {
+                    return parseFields(type, line.substring(start + type.length() + 2), zone);
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the payload was cut at AuditRecord.MAX_PAYLOAD_CHARS when it was audited
+     */
+    public static boolean isTruncated(String payload) {
+        return payload != null && payload.endsWith(AuditRecord.TRUNCATED_SUFFIX);
+    }
+
+    /**
+     * Reads a segment's raw data without AuditSegment.open, which would write index files
+     * and trim the tail of an active segment still owned by a running service.
+     */
+    private static void readSegment(File file, List<AuditRecord> records) throws IOException {
+        ByteBuffer data;
+        if (file.getName().endsWith(GZIP_SUFFIX)) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file), 65536)) {
+                data = ByteBuffer.wrap(readFully(in));
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        List<AuditRecord> batch = new ArrayList<>(SEGMENT_BATCH);
+        List<Integer> offsets = new ArrayList<>(SEGMENT_BATCH);
+        int offset = 0;
+        int next;
+        // Records failing the CRC check are skipped, so stop only when the offset stops moving
+        while ((next = AuditSegment.readSequential(data, offset, SEGMENT_BATCH, batch, offsets)) != offset) {
+            records.addAll(batch);
+            batch.clear();
+            offsets.clear();
+            offset = next;
+        }
+    }
+
+    private static void readText(File file, ZoneId zone, List<AuditRecord> records, Map<String, Long> skipped)
+            throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(GZIP_SUFFIX)) {
+            in = new GZIPInputStream(in, 65536);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            StringBuilder pending = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (RECORD_START.matcher(line).find()) {
+                    addRecord(pending, zone, records, skipped);
+                    pending = new StringBuilder(line);
+                } else if (pending != null) {
+                    // Continuation of a multi-line payload or message; text before the first record is ignored
+                    pending.append('\n').append(line);
+                }
+            }
+            addRecord(pending, zone, records, skipped);
+        }
+    }
+
+    private static void addRecord(StringBuilder text, ZoneId zone, List<AuditRecord> records, Map<String, Long> skipped) {
+        if (text == null) {
+            return;
+        }
+        AuditRecord record = parseLine(text.toString(), zone);
+        if (record != null) {
+            records.add(record);
+        } else {
+            skipped.merge(UNPARSABLE, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Splits "ts | correlationId | operation | table | user | ip | 12ms | code | message | payload | data".
+     * The fixed fields never contain the separator; the JSON payload is located by parsing it,
+     * since the message and payload may.
+     */
+    private static AuditRecord parseFields(String type, String text, ZoneId zone) {
+        String[] fixed = new String[8];
+        int position = 0;
+        for (int i = 0; i < fixed.length; i++) {
+            int next = text.indexOf(SEPARATOR, position);
+            fixed[i] = text.substring(position, next);
+            position = next + SEPARATOR.length();
+        }
+        AuditRecord record = new AuditRecord();
+        record.setType(type);
+        record.setTimestamp(LocalDateTime.parse(fixed[0], TIMESTAMP_FORMAT).atZone(zone).toInstant().toEpochMilli());
+        record.setCorrelationId(nullable(fixed[1]));
+        record.setOperationType(nullable(fixed[2]));
+        record.setTableName(nullable(fixed[3]));
+        record.setUserId(nullable(fixed[4]));
+        record.setIpAddress(nullable(fixed[5]));
+        record.setProcessingTime(Long.parseLong(fixed[6].substring(0, fixed[6].length() - 2)));
+        if (AuditRecord.TYPE_ERROR.equals(type)) {
+            record.setResponseCode(500);
+        } else if (AuditRecord.TYPE_VALIDATION.equals(type)) {
+            record.setResponseCode(400);
+        } else {
+            record.setResponseCode(Integer.parseInt(fixed[7]));
+        }
+
+        String rest = text.substring(position);
+        int payloadStart = rest.indexOf(SEPARATOR + "{");
+        if (payloadStart < 0) {
+            // No JSON payload: message | (empty payload) | data
+            int end = rest.indexOf(SEPARATOR);
+            record.setMessage(nullable(end < 0 ? rest : rest.substring(0, end)));
+            return record;
+        }
+        record.setMessage(nullable(rest.substring(0, payloadStart)));
+        String payloadAndData = rest.substring(payloadStart + SEPARATOR.length());
+        int payloadEnd = payloadEnd(payloadAndData);
+        record.setRequestPayload(payloadAndData.substring(0, payloadEnd));
+        if (payloadEnd + SEPARATOR.length() <= payloadAndData.length()) {
+            record.setResponseData(nullable(payloadAndData.substring(payloadEnd + SEPARATOR.length())));
+        }
+        return record;
+    }
+
+    /**
+     * Length of the JSON payload at the start of the text: the parsed object when it is
+     * followed by a separator, else up to the truncation marker.
+     *
+     * @throws IllegalArgumentException if the payload neither parses nor was truncated
+     */
+    private static int payloadEnd(String text) {
+        try (JsonParser parser = JSON_FACTORY.createParser(text)) {
+            int depth = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    depth++;
+                } else if ((token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) && --depth == 0) {
+                    int end = (int) parser.getCurrentLocation().getCharOffset();
+                    if (end == text.length() || text.startsWith(SEPARATOR, end)) {
+                        return end;
+                    }
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // Truncated or otherwise unparseable payload
+        }
+        int truncated = text.indexOf(AuditRecord.TRUNCATED_SUFFIX);
+        if (truncated >= 0) {
+            return truncated + AuditRecord.TRUNCATED_SUFFIX.length();
+        }
+        throw new IllegalArgumentException("Unparsable audit payload");
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[65536];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static String nullable(String value) {
+        return value == null || value.isEmpty() || "null".equals(value) ? null : value;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.bmslookup.loadtest;
+
+import com.example.bmslookup.audit.AuditLogReader;
+import com.example.bmslookup.audit.AuditRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays production traffic from the audit trail against a target instance.
+ *
+ * Reads audit.log files (AUDIT: / AUDIT_ERROR: / AUDIT_VALIDATION: lines, plain or
+ * rotated .gz) and audit store segments, rebuilds each GenericRequest envelope and
+ * sends it at its original offset from the first record, divided by the speed
+ * factor (open loop: a slow target does not slow the schedule down). Prints, per
+ * indicator, the recorded processingTime distribution next to the replayed one,
+ * plus errors and response codes that differ from the recorded ones.
+ *
+ * mvn -Ploadtest test-compile exec:java -Dexec.mainClass=com.example.bmslookup.loadtest.AuditReplay \
+ *     -Dexec.args="http://localhost:8080/bms-lookup/ws 4 200 logs/audit.log logs/audit-store"
+ *
+ * Arguments: url, speed factor (1 = original rate, 4 = four times faster),
+ * maximum requests in flight, then audit files or directories.
+ *
+ * Notes:
+ * - Replayed writes hit the target's database; point it at a scratch copy.
+ *   Records already present there come back as duplicate-id responses.
+ * - Recorded processingTime is measured inside the endpoint; replayed latency is
+ *   measured by the client from the scheduled send time, so it also includes HTTP,
+ *   SOAP (un)marshalling and any wait for a free in-flight slot (reported as lag).
+ * - Validation failures are skipped: the header fields that failed are not audited.
+ * - Payloads truncated by the audit (over AuditRecord.MAX_PAYLOAD_CHARS) are skipped.
+ * - audit.log lines and older segments do not carry the request id or raw indicator;
+ *   the indicator is derived from the operation and payload. Their lookups are
+ *   skipped, since a lookup by id replayed without its id reads the whole table.
+ * - A text record that is also in a segment (audit store enabled) is read once;
+ *   see AuditLogReader.
+ */
+public class AuditReplay {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Payload root element of the indicators audited as operationType UNKNOWN
+    private static final Map<String, String> INDICATOR_BY_PAYLOAD_ROOT = new LinkedHashMap<>();
+
+    static {
+        INDICATOR_BY_PAYLOAD_ROOT.put("hofEnrollmentData", "hof");
+        INDICATOR_BY_PAYLOAD_ROOT.put("nominationData", "nomination");
+        INDICATOR_BY_PAYLOAD_ROOT.put("splitData", "SPLIT_BENEFICIARY");
+        INDICATOR_BY_PAYLOAD_ROOT.put("updateData", "UPDATE_BENEFICIARY");
+        INDICATOR_BY_PAYLOAD_ROOT.put("enrollmentData", "INSERT_BENEFICIARY");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: AuditReplay <url> <speed> <maxInFlight> <audit file or directory>...");
+            System.exit(1);
+        }
+        String url = args[0];
+        double speed = Double.parseDouble(args[1]);
+        int maxInFlight = Integer.parseInt(args[2]);
+        List<File> inputs = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            inputs.add(new File(args[i]));
+        }
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Speed factor must be positive: " + speed);
+        }
+        SoapClient.keepAlive(maxInFlight);
+
+        Map<String, Long> skipped = new TreeMap<>();
+        List<AuditRecord> records = AuditLogReader.read(inputs, ZoneId.systemDefault(), skipped);
+        List<Replay> replays = prepare(records, skipped);
+        System.out.printf("Read %d audit records, replaying %d at %.2fx, skipped %s%n",
+                records.size(), replays.size(), speed, skipped);
+        if (replays.isEmpty()) {
+            return;
+        }
+
+        Map<String, Stats> stats = new TreeMap<>();
+        for (Replay replay : replays) {
+            stats.computeIfAbsent(replay.indicator, k -> new Stats()).recordOriginal(replay.record);
+        }
+        Recorder lag = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        long elapsedNanos = run(url, speed, maxInFlight, replays, stats, lag);
+
+        System.out.println();
+        double seconds = elapsedNanos / 1e9;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            entry.getValue().print(entry.getKey(), seconds);
+        }
+        Histogram lagHistogram = lag.getIntervalHistogram();
+        System.out.printf("%nReplay took %.1fs (recorded span %.1fs); client lag p99=%.1fms, max=%.1fms%n",
+                seconds,
+                (replays.get(replays.size() - 1).record.getTimestamp() - replays.get(0).record.getTimestamp()) / 1000.0,
+                lagHistogram.getValueAtPercentile(99) / 1000.0,
+                lagHistogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Keeps the records that can be rebuilt into a request, counting the rest by reason.
+     */
+    private static List<Replay> prepare(List<AuditRecord> records, Map<String, Long> skipped) {
+        List<Replay> replays = new ArrayList<>(records.size());
+        for (AuditRecord record : records) {
+            String reason = null;
+            String indicator = null;
+            if (AuditRecord.TYPE_VALIDATION.equals(record.getType())) {
+                reason = "validation";
+            } else if (AuditLogReader.isTruncated(record.getRequestPayload())) {
+                reason = "truncated";
+            } else if (record.getIndicator() == null && "LOOKUP".equals(record.getOperationType())) {
+                // Request id not recorded: cannot tell an id lookup from a criteria lookup
+                reason = "lookupWithoutId";
+            } else if ((indicator = resolveIndicator(record)) == null) {
+                reason = "unknownIndicator";
+            }
+            if (reason != null) {
+                skipped.merge(reason, 1L, Long::sum);
+                continue;
+            }
+            String envelope = SoapClient.envelope(
+                    valueOr(record.getCorrelationId(), SoapClient.DEFAULT_CORRELATION_ID),
+                    valueOr(record.getChannel(), SoapClient.DEFAULT_CHANNEL),
+                    valueOr(record.getChannelRequestId(), SoapClient.DEFAULT_CHANNEL_REQUEST_ID),
+                    valueOr(record.getUserId(), SoapClient.DEFAULT_USER_IDENTIFIER),
+                    record.getRequestId(),
+                    indicator,
+                    record.getRequestPayload());
+            replays.add(new Replay(record, indicator, envelope.getBytes(StandardCharsets.UTF_8)));
+        }
+        return replays;
+    }
+
+    /**
+     * The raw indicator when the record has it, else derived from the audited operation
+     * type, or for UNKNOWN operations from the payload's root element. Lookups without
+     * the raw indicator are skipped before this is called.
+     */
+    static String resolveIndicator(AuditRecord record) {
+        if (record.getIndicator() != null) {
+            return record.getIndicator();
+        }
+        if ("INSERT".equals(record.getOperationType())) {
+            return "i";
+        }
+        if ("UPDATE".equals(record.getOperationType())) {
+            return "u";
+        }
+        if (record.getRequestPayload() == null) {
+            return null;
+        }
+        try {
+            JsonNode root = MAPPER.readTree(record.getRequestPayload());
+            for (Map.Entry<String, String> entry : INDICATOR_BY_PAYLOAD_ROOT.entrySet()) {
+                if (root.has(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        } catch (Exception e) {
+            // Unparseable payload: cannot tell what the request was
+        }
+        return null;
+    }
+
+    private static long run(String url, double speed, int maxInFlight, List<Replay> replays,
+                            Map<String, Stats> stats, Recorder lag) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(maxInFlight);
+        long firstTimestamp = replays.get(0).record.getTimestamp();
+        long start = System.nanoTime();
+        for (Replay replay : replays) {
+            long due = start + (long) (TimeUnit.MILLISECONDS.toNanos(replay.record.getTimestamp() - firstTimestamp) / speed);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Stats target = stats.get(replay.indicator);
+            pool.execute(() -> {
+                long sent = System.nanoTime();
+                lag.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(sent - due), HIGHEST_TRACKABLE_MICROS));
+                int code = SoapClient.post(url, replay.envelope);
+                target.recordReplay(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due), code,
+                        replay.record.getResponseCode());
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        return System.nanoTime() - start;
+    }
+
+    private static String valueOr(String value, String fallback) {
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    /**
+     * One audit record rebuilt into a request.
+     */
+    private static final class Replay {
+        private final AuditRecord record;
+        private final String indicator;
+        private final byte[] envelope;
+
+        private Replay(AuditRecord record, String indicator, byte[] envelope) {
+            this.record = record;
+            this.indicator = indicator;
+            this.envelope = envelope;
+        }
+    }
+
+    /**
+     * Recorded and replayed latency of one indicator.
+     */
+    private static final class Stats {
+        private final Histogram original = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Recorder replayed = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong mismatches = new AtomicLong();
+        private final Map<Integer, AtomicLong> codes = new TreeMap<>();
+        private long originalErrors;
+
+        private void recordOriginal(AuditRecord record) {
+            original.recordValue(Math.min(TimeUnit.MILLISECONDS.toMicros(record.getProcessingTime()), HIGHEST_TRACKABLE_MICROS));
+            if (record.getResponseCode() != 200) {
+                originalErrors++;
+            }
+        }
+
+        private void recordReplay(long micros, int code, int recordedCode) {
+            replayed.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            if (code != 200) {
+                errors.incrementAndGet();
+                synchronized (codes) {
+                    codes.computeIfAbsent(code, k -> new AtomicLong()).incrementAndGet();
+                }
+            }
+            if (code != recordedCode) {
+                mismatches.incrementAndGet();
+            }
+        }
+
+        private void print(String indicator, double seconds) {
+            Histogram replay = replayed.getIntervalHistogram();
+            long count = original.getTotalCount();
+            System.out.printf("%-20s requests=%d, throughput=%.1f req/s%n", indicator, count, replay.getTotalCount() / seconds);
+            System.out.printf("  recorded  p50=%.1fms, p95=%.1fms, p99=%.1fms, max=%.1fms, errors=%d (%.2f%%)%n",
+                    original.getValueAtPercentile(50) / 1000.0,
+                    original.getValueAtPercentile(95) / 1000.0,
+                    original.getValueAtPercentile(99) / 1000.0,
+                    original.getMaxValue() / 1000.0,
+                    originalErrors,
+                    originalErrors * 100.0 / count);
+            System.out.printf("  replayed  p50=%.1fms, p95=%.1fms, p99=%.1fms, max=%.1fms, errors=%d (%.2f%%), "
+                            + "codeMismatches=%d%s%n",
+                    replay.getValueAtPercentile(50) / 1000.0,
+                    replay.getValueAtPercentile(95) / 1000.0,
+                    replay.getValueAtPercentile(99) / 1000.0,
+                    replay.getMaxValue() / 1000.0,
+                    errors.get(),
+                    errors.get() * 100.0 / count,
+                    mismatches.get(),
+                    codes.isEmpty() ? "" : ", errorCodes=" + codes);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.bmslookup.loadtest;
+
+import com.example.bmslookup.BmsLookupApplication;
+import com.example.bmslookup.metrics.StatementBudget;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end SOAP load test against an embedded H2 copy of the GDEV1T_UHI_DATA schema.
+ *
+ * Starts the whole service in-process (endpoint, admission, scheduler, audit, JDBC
+ * instrumentation) on a random port with the H2 database seeded from
+ * loadtest/schema.sql and loadtest/data.sql, drives a closed-loop mix of lookups,
+ * bulk inserts, HOF enrollments, splits and nominations, then prints throughput,
+ * p50/p95/p99 latency and error rate per indicator.
+ *
+ * mvn -Ploadtest test-compile exec:java -Dexec.mainClass=com.example.bmslookup.loadtest.EmbeddedLoadTest \
+ *     -Dexec.args="32 60 10 l=60,i=10,hof=10,split=10,nomination=10"
+ *
+ * Arguments: concurrent clients (default 32), measured seconds (default 60),
+ * warmup seconds (default 10), traffic mix as indicator=weight pairs (default below).
+ *
+ * Lookups go by id: a payload with only listName is treated as criteria by the
+ * service, so the lookup shape production clients use is the id one.
+ *
+ * Every request is also checked against a JDBC statement budget per indicator
+ * (STATEMENT_BUDGETS, or -Dloadtest.statement-budgets). The budgets are the
+ * statement counts of the request shapes below, so a change that adds
+ * statements (a new per-row query) fails the run with exit code 1. Lower a
+ * budget when a change batches statements away.
+ */
+public class EmbeddedLoadTest {
+
+    private static final String H2_URL =
+            "jdbc:h2:mem:uhi;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+
+    private static final String DEFAULT_MIX = "l=60,i=10,hof=10,split=10,nomination=10";
+    private static final String STATEMENT_BUDGETS = "l:1,i:15,hof:18,split:5,nomination:4";
+    private static final List<String> SUPPORTED_INDICATORS = Arrays.asList("l", "i", "hof", "split", "nomination");
+
+    // Seed sizes in loadtest/data.sql
+    private static final int COUNTRIES = 50;
+    private static final int CITIES = 300;
+    private static final int FAMILIES = 500;
+
+    private static final int BULK_INSERT_ROWS = 5;
+    private static final int HOF_MEMBERS = 3;
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int warmupSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        List<Operation> mix = parseMix(args.length > 3 ? args[3] : DEFAULT_MIX);
+        SoapClient.keepAlive(clients);
+
+        boolean withinBudget;
+        ConfigurableApplicationContext context = startService();
+        try {
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "") + "/ws";
+            System.out.printf("Service started at %s - clients=%d, warmup=%ds, measured=%ds, mix=%s%n",
+                    url, clients, warmupSeconds, seconds, describeMix(mix));
+            run(url, clients, warmupSeconds, seconds, mix);
+            report(mix, seconds);
+            withinBudget = checkStatementBudgets(context.getBean(StatementBudget.class), mix);
+        } finally {
+            context.close();
+        }
+        if (!withinBudget) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts the service against the in-memory database; command-line properties
+     * override the prod profile's Teradata settings.
+     */
+    private static ConfigurableApplicationContext startService() {
+        return new SpringApplicationBuilder(BmsLookupApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + H2_URL,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.encoding=UTF-8",
+                "--spring.sql.init.schema-locations=classpath:loadtest/schema.sql",
+                "--spring.sql.init.data-locations=classpath:loadtest/data.sql",
+                "--app.audit.db.enabled=false",
+                "--app.metrics.statement-budget.enabled=true",
+                "--app.metrics.statement-budget.limits="
+                        + System.getProperty("loadtest.statement-budgets", STATEMENT_BUDGETS));
+    }
+
+    private static void run(String url, int clients, int warmupSeconds, int seconds, List<Operation> mix)
+            throws InterruptedException {
+        int totalWeight = 0;
+        for (Operation operation : mix) {
+            totalWeight += operation.weight;
+        }
+        int weightSum = totalWeight;
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        Operation operation = pick(mix, ThreadLocalRandom.current().nextInt(weightSum));
+                        byte[] body = operation.envelope().getBytes(StandardCharsets.UTF_8);
+                        long start = System.nanoTime();
+                        int code = SoapClient.post(url, body);
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        if (start >= warmupEnd) {
+                            operation.record(micros, code);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        pool.shutdown();
+    }
+
+    private static void report(List<Operation> mix, int seconds) {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        System.out.println();
+        for (Operation operation : mix) {
+            Histogram histogram = operation.recorder.getIntervalHistogram();
+            total.add(histogram);
+            totalErrors += operation.errorCount();
+            print(operation.indicator, histogram, operation.errorCount(), seconds, operation.errorsByCode());
+        }
+        print("total", total, totalErrors, seconds, null);
+    }
+
+    /**
+     * Prints the statement budget of each indicator in the mix.
+     *
+     * @return false if any request went over its budget
+     */
+    private static boolean checkStatementBudgets(StatementBudget budget, List<Operation> mix) {
+        System.out.println();
+        for (Operation operation : mix) {
+            System.out.printf("%-10s statement budget=%d%n", operation.indicator, budget.budgetFor(operation.indicator));
+        }
+        boolean withinBudget = true;
+        for (StatementBudget.Violation violation : budget.getViolations()) {
+            withinBudget = false;
+            System.out.printf("STATEMENT BUDGET EXCEEDED: %s - %d requests, up to %d statements, budget %d%n",
+                    violation.getIndicator(), violation.getCount(), violation.getMaxStatements(), violation.getBudget());
+        }
+        return withinBudget;
+    }
+
+    private static void print(String label, Histogram histogram, long errors, int seconds, Map<Integer, Long> byCode) {
+        long count = histogram.getTotalCount();
+        System.out.printf("%-10s requests=%d, errors=%d (%.2f%%), throughput=%.1f req/s, "
+                        + "p50=%.1fms, p95=%.1fms, p99=%.1fms, max=%.1fms%s%n",
+                label,
+                count,
+                errors,
+                count == 0 ? 0.0 : errors * 100.0 / count,
+                count / (double) seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(95) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                byCode == null || byCode.isEmpty() ? "" : ", errorCodes=" + byCode);
+    }
+
+    private static List<Operation> parseMix(String spec) {
+        List<Operation> mix = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (!SUPPORTED_INDICATORS.contains(parts[0].trim().toLowerCase())) {
+                throw new IllegalArgumentException("Unsupported indicator in mix: " + parts[0]);
+            }
+            if (weight > 0) {
+                mix.add(new Operation(parts[0].trim(), weight));
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Traffic mix has no operations: " + spec);
+        }
+        return mix;
+    }
+
+    private static String describeMix(List<Operation> mix) {
+        StringBuilder result = new StringBuilder();
+        for (Operation operation : mix) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(operation.indicator).append('=').append(operation.weight);
+        }
+        return result.toString();
+    }
+
+    private static Operation pick(List<Operation> mix, int ticket) {
+        for (Operation operation : mix) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    /**
+     * One indicator in the mix: builds its requests and collects its results.
+     */
+    private static final class Operation {
+        private final String indicator;
+        private final int weight;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final ConcurrentMap<Integer, AtomicLong> errors = new ConcurrentHashMap<>();
+
+        private Operation(String indicator, int weight) {
+            this.indicator = indicator;
+            this.weight = weight;
+        }
+
+        private String envelope() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long seq = sequence.incrementAndGet();
+            switch (indicator.toLowerCase()) {
+                case "l":
+                    return random.nextBoolean()
+                            ? envelope(String.valueOf(random.nextInt(CITIES) + 1), "{\"listName\":\"City\"}")
+                            : envelope(String.valueOf(random.nextInt(COUNTRIES) + 1), "{\"listName\":\"Country\"}");
+                case "i":
+                    return envelope(null, bulkInsert(seq));
+                case "hof":
+                    return envelope(null, hofEnrollment(seq));
+                case "split":
+                    return envelope(null, split(seq, random.nextInt(FAMILIES) + 1));
+                case "nomination":
+                    return envelope(null, nomination(seq, random.nextInt(FAMILIES) + 1));
+                default:
+                    throw new IllegalArgumentException("Unsupported indicator in mix: " + indicator);
+            }
+        }
+
+        private String envelope(String id, String jsonPayload) {
+            return SoapClient.envelope(id, indicator, jsonPayload);
+        }
+
+        private void record(long micros, int code) {
+            recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            if (code != 200) {
+                errors.computeIfAbsent(code, k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        private long errorCount() {
+            long count = 0;
+            for (AtomicLong value : errors.values()) {
+                count += value.get();
+            }
+            return count;
+        }
+
+        private Map<Integer, Long> errorsByCode() {
+            Map<Integer, Long> result = new TreeMap<>();
+            for (Map.Entry<Integer, AtomicLong> entry : errors.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Bulk insert of new Area rows; every column is present as bulk insert requires.
+     */
+    private static String bulkInsert(long seq) {
+        StringBuilder json = new StringBuilder("{\"listName\":\"Area\",\"list\":[");
+        for (int i = 1; i <= BULK_INSERT_ROWS; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"A").append(seq).append('-').append(i)
+                    .append("\",\"code\":\"AR").append(seq).append(i)
+                    .append("\",\"name_ar\":\"منطقة ").append(seq).append('-').append(i)
+                    .append("\",\"name_en\":\"Area ").append(seq).append('-').append(i)
+                    .append("\",\"is_active\":true}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * HOF enrollment of a new family, each member with one contact and one employment.
+     */
+    private static String hofEnrollment(long seq) {
+        StringBuilder json = new StringBuilder("{\"listName\":\"beneficiary\",\"hofEnrollmentData\":{\"hofData\":[");
+        for (int m = 1; m <= HOF_MEMBERS; m++) {
+            if (m > 1) {
+                json.append(',');
+            }
+            String id = "H" + seq + "-" + m;
+            json.append("{\"id\":\"").append(id).append('"')
+                    .append(",\"firstName\":\"Ahmed\",\"lastName\":\"Hassan\",\"fullName\":\"Ahmed Mohamed Hassan\"")
+                    .append(",\"dob\":\"1985-04-12\",\"gender\":\"M\",\"mobile\":\"011").append(seq % 100000000).append('"')
+                    .append(",\"nationality\":\"EG\",\"nationalId\":\"29").append(seq).append(m).append('"')
+                    .append(",\"email\":\"").append(id).append("@example.com\"")
+                    .append(",\"familyId\":\"HF").append(seq).append('"')
+                    .append(",\"familyRelation\":\"").append(m == 1 ? "Head of Family" : "Son").append('"')
+                    .append(",\"activationStatus\":\"active\",\"previousBeneficiaryId\":null,\"medicalConditions\":null")
+                    .append(",\"contacts\":[{\"id\":\"HC").append(seq).append('-').append(m)
+                    .append("\",\"contactType\":\"MOBILE\",\"contactValue\":\"011").append(seq % 100000000).append("\"}]")
+                    .append(",\"employments\":[{\"id\":\"HE").append(seq).append('-').append(m)
+                    .append("\",\"beneficiaryId\":\"").append(id)
+                    .append("\",\"netIncome\":5400.5,\"jobDescription\":\"Accountant\",\"job\":\"12\"")
+                    .append(",\"employerGovernerate\":\"3\",\"companySocialInsuranceId\":\"SI-").append(id).append("\"}]}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * Moves the third member of a seeded family to a new family with a new employment.
+     */
+    private static String split(long seq, int family) {
+        String id = "B" + family + "-3";
+        return "{\"listName\":\"beneficiary\",\"splitData\":{\"splitInfo\":{\"old_familyId\":\"F" + family
+                + "\",\"new_familyId\":\"S" + seq + "\",\"splitDate\":\"" + LocalDate.now() + "\"},"
+                + "\"beneficiaryData\":[{\"id\":\"" + id + "\",\"employments\":[{\"id\":\"SE" + seq
+                + "\",\"beneficiaryId\":\"" + id + "\",\"netIncome\":3100,\"jobDescription\":\"Clerk\",\"job\":\"7\""
+                + ",\"employerGovernerate\":\"5\",\"companySocialInsuranceId\":\"SI-S" + seq + "\"}]}]}}";
+    }
+
+    /**
+     * Nominates the second member of a seeded family as its new Head of Family.
+     */
+    private static String nomination(long seq, int family) {
+        return "{\"listName\":\"beneficiary\",\"nominationData\":{\"nominationInfo\":{\"old_familyId\":\"F" + family
+                + "\",\"new_familyId\":\"N" + seq + "\"},\"hofData\":[{\"id\":\"B" + family + "-2\"}]}}";
+    }
+}
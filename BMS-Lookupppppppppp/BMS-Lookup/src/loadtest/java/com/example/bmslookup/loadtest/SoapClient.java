@@ -0,0 +1,126 @@
+package com.example.bmslookup.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GenericRequest envelopes and a minimal SOAP-over-HTTP client for the load drivers.
+ */
+final class SoapClient {
+
+    /**
+     * Returned by {@link #post} when the call failed or the response had no responseCode.
+     */
+    static final int TRANSPORT_ERROR = -1;
+
+    static final String DEFAULT_CORRELATION_ID = "1";
+    static final String DEFAULT_CHANNEL = "16";
+    static final String DEFAULT_CHANNEL_REQUEST_ID = "1";
+    static final String DEFAULT_USER_IDENTIFIER = "2970430001808";
+
+    private static final Pattern RESPONSE_CODE = Pattern.compile("responseCode>(-?\\d+)<");
+
+    private static final String ENVELOPE =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:uhi=\"http://teradata.com/uhi\">"
+            + "<soapenv:Header/><soapenv:Body><uhi:GenericRequest>"
+            + "<uhi:GGheader>"
+            + "<uhi:correlationId>%s</uhi:correlationId>"
+            + "<uhi:originatingChannel>%s</uhi:originatingChannel>"
+            + "<uhi:channelRequestId>%s</uhi:channelRequestId>"
+            + "<uhi:originatingUserType>1</uhi:originatingUserType>"
+            + "<uhi:originatingUserIdentifier>%s</uhi:originatingUserIdentifier>"
+            + "<uhi:serviceSlug>BMS-LOOKUP-01</uhi:serviceSlug>"
+            + "<uhi:serviceEntityId>1</uhi:serviceEntityId>"
+            + "</uhi:GGheader>"
+            + "%s"
+            + "<uhi:indicator>%s</uhi:indicator>"
+            + "<uhi:jsonPayload>%s</uhi:jsonPayload>"
+            + "</uhi:GenericRequest></soapenv:Body></soapenv:Envelope>";
+
+    private SoapClient() {
+    }
+
+    /**
+     * Envelope with the default header.
+     */
+    static String envelope(String id, String indicator, String jsonPayload) {
+        return envelope(DEFAULT_CORRELATION_ID, DEFAULT_CHANNEL, DEFAULT_CHANNEL_REQUEST_ID, DEFAULT_USER_IDENTIFIER,
+                id, indicator, jsonPayload);
+    }
+
+    /**
+     * Envelope with the given header fields; the id element is omitted when id is null.
+     */
+    static String envelope(String correlationId, String channel, String channelRequestId, String userIdentifier,
+                           String id, String indicator, String jsonPayload) {
+        return String.format(ENVELOPE,
+                escapeXml(correlationId),
+                escapeXml(channel),
+                escapeXml(channelRequestId),
+                escapeXml(userIdentifier),
+                id == null ? "" : "<uhi:id>" + escapeXml(id) + "</uhi:id>",
+                escapeXml(indicator),
+                jsonPayload == null ? "" : escapeXml(jsonPayload));
+    }
+
+    /**
+     * Lets the JDK keep up to the given number of idle connections per host (default 5),
+     * so each client thread reuses its connection. Call before the first request.
+     */
+    static void keepAlive(int connections) {
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(connections));
+        }
+    }
+
+    /**
+     * Posts one envelope. The response is read to the end and closed, without
+     * disconnect(), so the connection goes back to the JDK keep-alive cache.
+     *
+     * @return the SOAP responseCode, or {@link #TRANSPORT_ERROR}
+     */
+    static int post(String url, byte[] body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(30000);
+            connection.setReadTimeout(300000);
+            connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
+            connection.setRequestProperty("SOAPAction", "");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String response = in == null ? "" : readFully(in);
+            // Matches both prefixed and unprefixed <responseCode>...</responseCode>
+            Matcher matcher = RESPONSE_CODE.matcher(response);
+            return matcher.find() ? Integer.parseInt(matcher.group(1)) : TRANSPORT_ERROR;
+        } catch (Exception e) {
+            return TRANSPORT_ERROR;
+        }
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
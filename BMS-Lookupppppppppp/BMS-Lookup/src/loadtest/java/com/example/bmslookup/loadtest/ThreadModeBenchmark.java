@@ -0,0 +1,145 @@
+package com.example.bmslookup.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop SOAP benchmark for comparing platform-thread and virtual-thread modes.
+ *
+ * Start the service once with app.threads.virtual.enabled=false and once with
+ * true (java21 build), then run against each:
+ *
+ * mvn -Ploadtest exec:java -Dexec.mainClass=com.example.bmslookup.loadtest.ThreadModeBenchmark \
+ *     -Dexec.args="http://localhost:8080/bms-lookup/ws 1000 60 platform"
+ *
+ * Arguments: url, concurrent clients (default 1000), measured seconds (default 60), label.
+ * Prints throughput, p50/p99/max latency and error count.
+ */
+public class ThreadModeBenchmark {
+
+    private static final String LOOKUP_ENVELOPE =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:uhi=\"http://teradata.com/uhi\">"
+            + "<soapenv:Header/><soapenv:Body><uhi:GenericRequest>"
+            + "<uhi:GGheader>"
+            + "<uhi:correlationId>1</uhi:correlationId>"
+            + "<uhi:originatingChannel>16</uhi:originatingChannel>"
+            + "<uhi:channelRequestId>1</uhi:channelRequestId>"
+            + "<uhi:originatingUserType>1</uhi:originatingUserType>"
+            + "<uhi:originatingUserIdentifier>2970430001808</uhi:originatingUserIdentifier>"
+            + "<uhi:serviceSlug>BMS-LOOKUP-01</uhi:serviceSlug>"
+            + "<uhi:serviceEntityId>1</uhi:serviceEntityId>"
+            + "</uhi:GGheader>"
+            + "<uhi:id>1</uhi:id>"
+            + "<uhi:indicator>l</uhi:indicator>"
+            + "<uhi:jsonPayload>{\"listName\":\"Governorate\"}</uhi:jsonPayload>"
+            + "</uhi:GenericRequest></soapenv:Body></soapenv:Envelope>";
+
+    private static final int WARMUP_SECONDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/bms-lookup/ws";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        String label = args.length > 3 ? args[3] : "run";
+        // Keep one idle connection per client (JDK default is 5), so the run times the server, not connects
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(clients));
+        }
+
+        byte[] body = LOOKUP_ENVELOPE.getBytes(StandardCharsets.UTF_8);
+        Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(5), 3);
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        boolean ok = post(url, body);
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                        if (start >= warmupEnd) {
+                            recorder.recordValue(Math.min(micros, TimeUnit.MINUTES.toMicros(5)));
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Discard warmup samples
+        TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+        recorder.getIntervalHistogram();
+
+        done.await();
+        pool.shutdown();
+        Histogram histogram = recorder.getIntervalHistogram();
+
+        System.out.printf("%s: clients=%d, requests=%d, errors=%d, throughput=%.1f req/s, p50=%.1fms, p99=%.1fms, max=%.1fms%n",
+                label,
+                clients,
+                histogram.getTotalCount(),
+                errors.get(),
+                histogram.getTotalCount() / (double) seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * The response is read to the end and closed, without disconnect(), so the
+     * connection is reused for the client's next request.
+     */
+    private static boolean post(String url, byte[] body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(30000);
+            connection.setReadTimeout(300000);
+            connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
+            connection.setRequestProperty("SOAPAction", "");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String response = in == null ? "" : readFully(in);
+            // Matches both prefixed and unprefixed <responseCode>200</responseCode>
+            return status == 200 && response.contains("responseCode>200<");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = input.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
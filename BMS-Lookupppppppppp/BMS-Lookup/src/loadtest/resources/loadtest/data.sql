@@ -0,0 +1,34 @@
+-- Seed data for the embedded load test. Sizes match EmbeddedLoadTest:
+-- 50 countries, 300 cities, 500 families of three (B<n>-1 is the Head of Family).
+
+INSERT INTO GDEV1T_UHI_DATA.bms_Country_lkp (id, code, name_ar, name_en, is_active)
+SELECT CAST(X AS VARCHAR), 'CTR' || X, 'دولة ' || X, 'Country ' || X, 1 FROM SYSTEM_RANGE(1, 50);
+
+INSERT INTO GDEV1T_UHI_DATA.bms_Governorate_lkp (id, code, name_ar, name_en, is_active)
+SELECT CAST(X AS VARCHAR), 'GOV' || X, 'محافظة ' || X, 'Governorate ' || X, 1 FROM SYSTEM_RANGE(1, 27);
+
+INSERT INTO GDEV1T_UHI_DATA.bms_City_lkp (id, code, name_ar, name_en, governorate_id, is_active)
+SELECT CAST(X AS VARCHAR), 'CTY' || X, 'مدينة ' || X, 'City ' || X, CAST(MOD(X, 27) + 1 AS VARCHAR), 1
+FROM SYSTEM_RANGE(1, 300);
+
+INSERT INTO GDEV1T_UHI_DATA.bms_Relation_lkp (id, code, name_ar, name_en, is_active) VALUES
+('1', 'HOF', 'رب الأسرة', 'Head of Family', 1),
+('2', 'WIFE', 'زوجة', 'Wife', 1),
+('3', 'SON', 'ابن', 'Son', 1),
+('4', 'DAUGHTER', 'ابنة', 'Daughter', 1);
+
+INSERT INTO GDEV1T_UHI_DATA.beneficiary (id, firstName, lastName, fullName, dob, gender, mobile, nationality,
+        nationalId, email, familyId, familyRelation, activationStatus)
+SELECT 'B' || F.X || '-' || M.X, 'Member' || M.X, 'Family' || F.X, 'Member' || M.X || ' Family' || F.X,
+       '1985-04-12', CASE WHEN M.X = 2 THEN 'F' ELSE 'M' END, '010' || (10000000 + F.X * 10 + M.X), 'EG',
+       CAST(28504120000000 + F.X * 10 + M.X AS VARCHAR), 'member' || F.X || '-' || M.X || '@example.com',
+       'F' || F.X, CASE M.X WHEN 1 THEN 'Head of Family' WHEN 2 THEN 'Wife' ELSE 'Son' END, 'active'
+FROM SYSTEM_RANGE(1, 500) F, SYSTEM_RANGE(1, 3) M;
+
+INSERT INTO GDEV1T_UHI_DATA.contact (id, beneficiaryId, contactType, contactValue)
+SELECT 'C' || id, id, 'MOBILE', mobile FROM GDEV1T_UHI_DATA.beneficiary;
+
+INSERT INTO GDEV1T_UHI_DATA.employment (id, beneficiaryId, netIncome, jobDescription, job, employerGovernerate,
+        companySocialInsuranceId)
+SELECT 'E' || id, id, 5400.50, 'Accountant', '12', '3', 'SI-' || id
+FROM GDEV1T_UHI_DATA.beneficiary WHERE familyRelation = 'Head of Family';
@@ -0,0 +1,78 @@
+-- Stand-in for the GDEV1T_UHI_DATA tables the service reads and writes, for the
+-- embedded H2 load test (EmbeddedLoadTest). Identifier case follows the service
+-- SQL; the H2 URL sets CASE_INSENSITIVE_IDENTIFIERS so quoted and unquoted
+-- references resolve as they do on Teradata.
+
+CREATE SCHEMA IF NOT EXISTS GDEV1T_UHI_DATA;
+
+-- Lookup tables: bulk insert requires every column to be present in each row
+CREATE TABLE GDEV1T_UHI_DATA.bms_Area_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Country_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_City_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), governorate_id VARCHAR(40), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_MossCategory_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_DiseaseList_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_MossIndicator_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_SocialStatus_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_CollectionEntities_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Language_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Nationality_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_SickCategory_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_DeactivationReasons_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Governorate_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Education_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_MossSubCategory_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Provider_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Gender_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_MilitaryService_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Telecom_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Relation_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+CREATE TABLE GDEV1T_UHI_DATA.bms_Cluster_lkp (id VARCHAR(40) PRIMARY KEY, code VARCHAR(20), name_ar VARCHAR(200), name_en VARCHAR(200), is_active SMALLINT);
+
+CREATE TABLE GDEV1T_UHI_DATA.beneficiary (
+    id VARCHAR(40) PRIMARY KEY,
+    firstName VARCHAR(100),
+    lastName VARCHAR(100),
+    fullName VARCHAR(300),
+    dob VARCHAR(20),
+    gender VARCHAR(10),
+    mobile VARCHAR(20),
+    nationality VARCHAR(10),
+    nationalId VARCHAR(20),
+    email VARCHAR(200),
+    familyId VARCHAR(40),
+    familyRelation VARCHAR(50),
+    activationStatus VARCHAR(20),
+    previousBeneficiaryId VARCHAR(40),
+    deactivationReason VARCHAR(200),
+    medicalConditions VARCHAR(500),
+    dateOfDeath VARCHAR(20),
+    husbandNationalId VARCHAR(20),
+    uhiaDeathReportingDate VARCHAR(20),
+    passportNumber VARCHAR(20),
+    passportExpiryDate VARCHAR(20),
+    socialInsuranceNumber VARCHAR(20),
+    createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updatedAt TIMESTAMP
+);
+CREATE INDEX beneficiary_family_idx ON GDEV1T_UHI_DATA.beneficiary (familyId);
+
+CREATE TABLE GDEV1T_UHI_DATA.contact (
+    id VARCHAR(40) PRIMARY KEY,
+    beneficiaryId VARCHAR(40),
+    contactType VARCHAR(20),
+    contactValue VARCHAR(200),
+    createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX contact_beneficiary_idx ON GDEV1T_UHI_DATA.contact (beneficiaryId);
+
+CREATE TABLE GDEV1T_UHI_DATA.employment (
+    id VARCHAR(40) PRIMARY KEY,
+    beneficiaryId VARCHAR(40),
+    netIncome DECIMAL(12, 2),
+    jobDescription VARCHAR(200),
+    job VARCHAR(40),
+    employerGovernerate VARCHAR(40),
+    companySocialInsuranceId VARCHAR(40),
+    createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX employment_beneficiary_idx ON GDEV1T_UHI_DATA.employment (beneficiaryId);
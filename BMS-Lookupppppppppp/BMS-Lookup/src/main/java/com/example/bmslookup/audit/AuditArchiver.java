@@ -0,0 +1,218 @@
+package com.example.bmslookup.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background compression and retention for rotated audit files and sealed audit store segments.
+ * Runs on its own low-priority thread, so neither request threads nor the audit writer ever wait on it.
+ *
+ * - Rotated text files (audit-*.log) are gzipped as soon as they appear.
+ * - Sealed store segments are gzipped once older than compress-after-ms; recent ones stay memory-mappable.
+ * - Anything older than max-age-days is deleted, then the oldest files go until total size fits max-total-bytes.
+ */
+@Component
+public class AuditArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchiver.class);
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    @Autowired
+    private AuditWriter auditWriter;
+
+    @Autowired
+    private AuditStore auditStore;
+
+    @Autowired
+    private AuditDbSink auditDbSink;
+
+    @Value("${app.audit.archive.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${app.audit.store.compress-after-ms:86400000}")
+    private long segmentCompressAfterMs;
+
+    @Value("${app.audit.retention.max-age-days:90}")
+    private int maxAgeDays;
+
+    @Value("${app.audit.retention.max-total-bytes:10737418240}")
+    private long maxTotalBytes;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-archiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::archive, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Audit archiver started - interval: {}ms, retention: {} days / {} bytes",
+                intervalMs, maxAgeDays, maxTotalBytes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One compression + retention pass.
+     */
+    public void archive() {
+        try {
+            compressRotatedFiles();
+            compressSegments();
+            enforceRetention();
+        } catch (Exception e) {
+            logger.error("Error archiving audit files", e);
+        }
+    }
+
+    private void compressRotatedFiles() {
+        for (File file : rotatedFiles()) {
+            if (file.getName().endsWith(GZIP_SUFFIX)) {
+                continue;
+            }
+            File target = new File(file.getPath() + GZIP_SUFFIX);
+            File temp = new File(target.getPath() + ".tmp");
+            long originalBytes = file.length();
+            try {
+                gzip(file, temp);
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Could not rename " + temp + " to " + target);
+                }
+                if (!file.delete()) {
+                    logger.warn("Could not delete compressed audit file {}", file);
+                }
+                logger.info("Compressed audit file {} ({} -> {} bytes)", file.getName(), originalBytes, target.length());
+            } catch (IOException e) {
+                temp.delete();
+                logger.error("Error compressing audit file {}", file, e);
+            }
+        }
+    }
+
+    private void compressSegments() {
+        long cutoff = System.currentTimeMillis() - segmentCompressAfterMs;
+        for (AuditSegment segment : auditStore.sealedSegments()) {
+            if (segment.isCompressed() || segment.getRecordCount() > 0 && segment.getMaxTimestamp() > cutoff) {
+                continue;
+            }
+            try {
+                segment.compress();
+                logger.info("Compressed audit segment {}", segment.getName());
+            } catch (IOException e) {
+                logger.error("Error compressing audit segment {}", segment.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Deletes by age, then oldest-first by total size. The live audit file and the active segment are never touched.
+     */
+    private void enforceRetention() {
+        long maxAgeCutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+        List<ArchiveEntry> entries = new ArrayList<>();
+        for (File file : rotatedFiles()) {
+            entries.add(new ArchiveEntry(file.lastModified(), file.length(), file, null));
+        }
+        for (AuditSegment segment : auditStore.sealedSegments()) {
+            long newest = segment.getRecordCount() > 0 ? segment.getMaxTimestamp() : segment.getDataFile().lastModified();
+            entries.add(new ArchiveEntry(newest, segment.getDiskBytes(), null, segment));
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.newestTimestamp));
+
+        long liveBytes = new File(auditWriter.getAuditFile()).length();
+        long totalBytes = liveBytes;
+        for (ArchiveEntry entry : entries) {
+            totalBytes += entry.bytes;
+        }
+        for (ArchiveEntry entry : entries) {
+            boolean overSize = totalBytes > maxTotalBytes;
+            if (entry.newestTimestamp >= maxAgeCutoff && !overSize) {
+                break;
+            }
+            // Segments still spooled for the DB sink outlive the age limit, but never the size limit
+            if (!overSize && entry.segment != null && auditDbSink.isPending(entry.segment.getName())) {
+                continue;
+            }
+            totalBytes -= entry.bytes;
+            if (entry.segment != null) {
+                auditStore.delete(entry.segment);
+                logger.info("Purged audit segment {}", entry.segment.getName());
+            } else if (entry.file.delete()) {
+                logger.info("Purged audit file {}", entry.file.getName());
+            } else {
+                logger.warn("Could not purge audit file {}", entry.file);
+            }
+        }
+    }
+
+    private List<File> rotatedFiles() {
+        File auditFile = new File(auditWriter.getAuditFile()).getAbsoluteFile();
+        String prefix = auditWriter.getArchivePrefix();
+        String suffix = auditWriter.getArchiveSuffix();
+        File[] files = auditFile.getParentFile().listFiles((dir, name) -> name.startsWith(prefix)
+                && (name.endsWith(suffix) || name.endsWith(suffix + GZIP_SUFFIX)));
+        List<File> result = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void gzip(File source, File target) throws IOException {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target), 65536)) {
+            byte[] buffer = new byte[65536];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * A rotated text file or a sealed segment, with the timestamp of its newest record.
+     */
+    private static class ArchiveEntry {
+        final long newestTimestamp;
+        final long bytes;
+        final File file;
+        final AuditSegment segment;
+
+        ArchiveEntry(long newestTimestamp, long bytes, File file, AuditSegment segment) {
+            this.newestTimestamp = newestTimestamp;
+            this.bytes = bytes;
+            this.file = file;
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.bmslookup.audit;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional sink shipping audit records to a shared DB audit table, so every node's audit is in one place.
+ *
+ * The local audit store segments are the spool: this sink tails them from a persisted
+ * checkpoint on its own background thread and inserts large JDBC batches through its own
+ * small connection pool, separate from the request pool. When the DB is slow or down the
+ * sink simply falls behind and retries with backoff; the request path never waits on it.
+ * Delivery is at-least-once; EVENT_ID (node:segment:offset) identifies duplicates.
+ *
+ * Expected table (name from app.audit.db.table):
+ * CREATE MULTISET TABLE GDEV1T_UHI_DATA.bms_audit_log (
+ *     EVENT_ID VARCHAR(200), NODE_ID VARCHAR(100), EVENT_TYPE VARCHAR(20), EVENT_TS TIMESTAMP(3),
+ *     CORRELATION_ID VARCHAR(100), CHANNEL_REQUEST_ID VARCHAR(100), CHANNEL VARCHAR(50),
+ *     USER_ID VARCHAR(100), OPERATION_TYPE VARCHAR(50), TABLE_NAME VARCHAR(200), IP_ADDRESS VARCHAR(100),
+ *     PROCESSING_TIME_MS BIGINT, RESPONSE_CODE INTEGER, RESPONSE_MESSAGE VARCHAR(4000),
+ *     REQUEST_PAYLOAD VARCHAR(4000), RESPONSE_DATA VARCHAR(4000)
+ * ) PRIMARY INDEX (EVENT_ID);
+ */
+@Component
+public class AuditDbSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditDbSink.class);
+
+    private static final String CHECKPOINT_FILE = "db-sink.checkpoint";
+    private static final int MAX_TEXT = 4000;
+
+    @Autowired
+    private AuditStore auditStore;
+
+    @Value("${app.audit.db.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.audit.db.table:GDEV1T_UHI_DATA.bms_audit_log}")
+    private String table;
+
+    @Value("${app.audit.db.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.audit.db.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${app.audit.db.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${app.audit.db.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.audit.db.node-id:}")
+    private String nodeId;
+
+    @Value("${app.audit.store.directory:logs/audit-store}")
+    private String storeDirectory;
+
+    @Value("${spring.datasource.url}")
+    private String databaseUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Thread sinkThread;
+    private volatile boolean running;
+
+    // Checkpoint: next record to ship; owned by the sink thread
+    private volatile String checkpointSegment;
+    private volatile int checkpointOffset;
+    private AuditSegment cachedSegment;
+    private ByteBuffer cachedBuffer;
+    private volatile long shipped;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!auditStore.isEnabled()) {
+            logger.warn("Audit DB sink needs the audit store (app.audit.store.enabled) as its spool; sink disabled");
+            enabled = false;
+            return;
+        }
+        if (nodeId == null || nodeId.trim().isEmpty()) {
+            nodeId = hostName();
+        }
+        dataSource = createDataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setQueryTimeout(120);
+        loadCheckpoint();
+
+        running = true;
+        sinkThread = new Thread(this::run, "audit-db-sink");
+        sinkThread.setDaemon(true);
+        sinkThread.start();
+        logger.info("Audit DB sink started - table: {}, node: {}, batch: {}, checkpoint: {}@{}",
+                table, nodeId, batchSize, checkpointSegment, checkpointOffset);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        sinkThread.interrupt();
+        try {
+            sinkThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dataSource.close();
+        logger.info("Audit DB sink stopped - shipped: {}, checkpoint: {}@{}", shipped, checkpointSegment, checkpointOffset);
+    }
+
+    /**
+     * Whether a segment still holds records not yet shipped; retention keeps such segments when it can.
+     */
+    public boolean isPending(String segmentName) {
+        return enabled && (checkpointSegment == null || segmentName.compareTo(checkpointSegment) >= 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getShippedCount() {
+        return shipped;
+    }
+
+    private void run() {
+        long backoffMs = pollIntervalMs;
+        while (running) {
+            try {
+                if (shipBatch()) {
+                    backoffMs = pollIntervalMs;
+                    continue;
+                }
+                sleep(pollIntervalMs);
+            } catch (Exception e) {
+                // DB slow or unreachable: keep the checkpoint, records stay spooled in the segments
+                logger.warn("Audit DB sink failed, retrying in {}ms: {}", backoffMs, e.getMessage());
+                sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Ships one batch from the checkpoint.
+     *
+     * @return true if records were shipped or the checkpoint moved to the next segment
+     */
+    private boolean shipBatch() throws IOException {
+        if (checkpointSegment == null) {
+            // First start: ship from the beginning of the newest segment rather than the whole history
+            AuditSegment latest = auditStore.latestSegment();
+            if (latest == null) {
+                return false;
+            }
+            saveCheckpoint(latest.getName(), 0);
+        }
+
+        AuditSegment segment = auditStore.segmentAtOrAfter(checkpointSegment);
+        if (segment == null) {
+            return false;
+        }
+        if (!segment.getName().equals(checkpointSegment)) {
+            logger.warn("Audit segment {} was purged before it was shipped; continuing from {}",
+                    checkpointSegment, segment.getName());
+            saveCheckpoint(segment.getName(), 0);
+        }
+
+        ByteBuffer data = buffer(segment);
+        if (data == null) {
+            return false;
+        }
+        List<AuditRecord> records = new ArrayList<>(batchSize);
+        List<Integer> offsets = new ArrayList<>(batchSize);
+        int next = AuditSegment.readSequential(data, checkpointOffset, batchSize, records, offsets);
+
+        if (!records.isEmpty()) {
+            insert(segment.getName(), records, offsets);
+            shipped += records.size();
+        }
+        if (next != checkpointOffset) {
+            saveCheckpoint(segment.getName(), next);
+            return true;
+        }
+        // Nothing left here; move on once the segment is sealed and a newer one exists
+        if (segment.isSealed()) {
+            AuditSegment following = auditStore.segmentAtOrAfter(segment.getName() + "\u0000");
+            if (following != null) {
+                saveCheckpoint(following.getName(), 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ByteBuffer buffer(AuditSegment segment) throws IOException {
+        if (segment == cachedSegment && segment.isSealed() && cachedBuffer != null) {
+            return cachedBuffer;
+        }
+        ByteBuffer data = segment.readBuffer();
+        // Only sealed segments are immutable; the active one is re-read to see new records
+        cachedSegment = segment.isSealed() ? segment : null;
+        cachedBuffer = segment.isSealed() ? data : null;
+        return data;
+    }
+
+    private void insert(String segmentName, List<AuditRecord> records, List<Integer> offsets) {
+        String sql = "INSERT INTO " + table + " (EVENT_ID, NODE_ID, EVENT_TYPE, EVENT_TS, CORRELATION_ID, "
+                + "CHANNEL_REQUEST_ID, CHANNEL, USER_ID, OPERATION_TYPE, TABLE_NAME, IP_ADDRESS, "
+                + "PROCESSING_TIME_MS, RESPONSE_CODE, RESPONSE_MESSAGE, REQUEST_PAYLOAD, RESPONSE_DATA) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AuditRecord record = records.get(i);
+                ps.setString(1, nodeId + ":" + segmentName + ":" + offsets.get(i));
+                ps.setString(2, nodeId);
+                ps.setString(3, record.getType());
+                ps.setTimestamp(4, new Timestamp(record.getTimestamp()));
+                setText(ps, 5, record.getCorrelationId());
+                setText(ps, 6, record.getChannelRequestId());
+                setText(ps, 7, record.getChannel());
+                setText(ps, 8, record.getUserId());
+                setText(ps, 9, record.getOperationType());
+                setText(ps, 10, record.getTableName());
+                setText(ps, 11, record.getIpAddress());
+                ps.setLong(12, record.getProcessingTime());
+                ps.setInt(13, record.getResponseCode());
+                setText(ps, 14, record.getMessage());
+                setText(ps, 15, record.getRequestPayload());
+                setText(ps, 16, record.getResponseData());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return records.size();
+            }
+        });
+    }
+
+    private static void setText(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, value.length() > MAX_TEXT ? value.substring(0, MAX_TEXT) : value);
+        }
+    }
+
+    private HikariDataSource createDataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(databaseUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setDriverClassName("com.teradata.jdbc.TeraDriver");
+        config.setPoolName("BMSAuditSinkPool");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(0);
+        config.setAutoCommit(true);
+        config.setConnectionTimeout(30000);
+        // Do not fail startup when the DB is down; records wait in the spool
+        config.setInitializationFailTimeout(-1);
+        config.addDataSourceProperty("QUERY_BAND", "ApplicationName=BMS_LOOKUP_AUDIT;");
+        return new HikariDataSource(config);
+    }
+
+    private void loadCheckpoint() {
+        File file = new File(storeDirectory, CHECKPOINT_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            String[] parts = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim().split("\\s+");
+            checkpointSegment = parts[0];
+            checkpointOffset = Integer.parseInt(parts[1]);
+        } catch (Exception e) {
+            logger.error("Ignoring unreadable audit DB sink checkpoint {}", file, e);
+            checkpointSegment = null;
+            checkpointOffset = 0;
+        }
+    }
+
+    private void saveCheckpoint(String segmentName, int offset) throws IOException {
+        checkpointSegment = segmentName;
+        checkpointOffset = offset;
+        File file = new File(storeDirectory, CHECKPOINT_FILE);
+        File temp = new File(storeDirectory, CHECKPOINT_FILE + ".tmp");
+        Files.write(temp.toPath(), (segmentName + " " + offset).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
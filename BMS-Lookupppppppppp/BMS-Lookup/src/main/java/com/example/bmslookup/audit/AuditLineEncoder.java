@@ -0,0 +1,117 @@
+package com.example.bmslookup.audit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams an AuditRecord as the audit.log text line straight into a Writer.
+ * Owned by the audit writer thread: the timestamp prefix is reformatted only
+ * when the second changes, and payloads are truncated while writing instead of
+ * building substrings.
+ *
+ * Output is identical to the previous String.format layout, e.g.
+ * AUDIT: ts | correlationId | operation | table | user | ip | 12ms | 200 | message | payload | data
+ */
+class AuditLineEncoder {
+
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SEPARATOR = " | ";
+    private static final String NULL = "null";
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+    private final char[] millis = new char[4];
+    private int written;
+
+    /**
+     * Writes one line (without newline).
+     *
+     * @return number of chars written
+     */
+    int encode(AuditRecord record, Writer out) throws IOException {
+        written = 0;
+        String type = record.getType();
+        write(out, type);
+        write(out, ": ");
+        writeTimestamp(out, record.getTimestamp());
+        write(out, SEPARATOR);
+        write(out, record.getCorrelationId());
+        write(out, SEPARATOR);
+        write(out, record.getOperationType());
+        write(out, SEPARATOR);
+        write(out, record.getTableName());
+        write(out, SEPARATOR);
+        write(out, record.getUserId());
+        write(out, SEPARATOR);
+        write(out, record.getIpAddress());
+        write(out, SEPARATOR);
+        writeNumber(out, record.getProcessingTime());
+        write(out, "ms");
+        write(out, SEPARATOR);
+        if (AuditRecord.TYPE_ERROR.equals(type)) {
+            write(out, "ERROR");
+        } else if (AuditRecord.TYPE_VALIDATION.equals(type)) {
+            write(out, "VALIDATION_ERROR");
+        } else {
+            writeNumber(out, record.getResponseCode());
+        }
+        write(out, SEPARATOR);
+        write(out, record.getMessage());
+        write(out, SEPARATOR);
+        writeTruncated(out, record.getRequestPayload());
+        write(out, SEPARATOR);
+        if (AuditRecord.TYPE_AUDIT.equals(type)) {
+            writeTruncated(out, record.getResponseData());
+        }
+        return written;
+    }
+
+    private void writeTimestamp(Writer out, long timestamp) throws IOException {
+        long second = Math.floorDiv(timestamp, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone).format(SECOND_FORMAT);
+        }
+        write(out, cachedSecondText);
+        int ms = (int) Math.floorMod(timestamp, 1000);
+        millis[0] = '.';
+        millis[1] = (char) ('0' + ms / 100);
+        millis[2] = (char) ('0' + ms / 10 % 10);
+        millis[3] = (char) ('0' + ms % 10);
+        out.write(millis, 0, 4);
+        written += 4;
+    }
+
+    private void writeNumber(Writer out, long value) throws IOException {
+        // Small numbers are the common case; String.valueOf only allocates for the rest
+        if (value >= 0 && value < 10) {
+            out.write((int) ('0' + value));
+            written++;
+        } else {
+            write(out, String.valueOf(value));
+        }
+    }
+
+    private void writeTruncated(Writer out, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        int length = AuditRecord.truncatedLength(value);
+        out.write(value, 0, length);
+        written += length;
+        if (length < value.length()) {
+            write(out, AuditRecord.TRUNCATED_SUFFIX);
+        }
+    }
+
+    private void write(Writer out, String value) throws IOException {
+        String text = value == null ? NULL : value;
+        out.write(text, 0, text.length());
+        written += text.length();
+    }
+}
@@ -2,27 +2,28 @@ package com.example.bmslookup.audit;
 
 import com.example.bmslookup.dto.GenericRequest;
 import com.example.bmslookup.dto.GenericResponse;
+import com.example.bmslookup.metrics.RequestContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Dedicated audit logger for tracking all requests and responses
+ * Dedicated audit logger for tracking all requests and responses.
+ * Only captures field references on the request thread; formatting, truncation
+ * and I/O happen on the audit writer thread (see AuditWriter, AuditLineEncoder).
  */
 @Component
 public class AuditLogger {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditLogger.class);
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
-    private static final String AUDIT_LOG_FILE = "logs/audit.log";
+
+    @Autowired
+    private AuditWriter auditWriter;
 
 
     /**
@@ -30,33 +31,12 @@ public class AuditLogger {
      */
     public void logAudit(GenericRequest request, GenericResponse response, long processingTime, String ipAddress) {
         try {
-            String timestamp = LocalDateTime.now().format(formatter);
-            String correlationId = request.getGGheader().getCorrelationId();
-            String operationType = request.getOperationType();
-            String tableName = extractTableNameFromPayload(request);
-            String userId = request.getGGheader().getOriginatingUserIdentifier();
-            int responseCode = response.getResponseCode();
-            String responseMessage = response.getResponseMessage();
-            String jsonPayload = truncateJsonPayload(request.getJsonPayload());
-            String responseData = truncateJsonPayload(response.getData());
-
-            String auditMessage = String.format(
-                "AUDIT: %s | %s | %s | %s | %s | %s | %dms | %d | %s | %s | %s",
-                timestamp,
-                correlationId,
-                operationType,
-                tableName,
-                userId,
-                ipAddress,
-                processingTime,
-                responseCode,
-                responseMessage,
-                jsonPayload,
-                responseData
-            );
-
-            writeToAuditFile(auditMessage);
-            logger.debug("Audit logged: {}", correlationId);
+            AuditRecord record = createRecord(AuditRecord.TYPE_AUDIT, request, processingTime, ipAddress,
+                    response.getResponseCode(), response.getResponseMessage());
+            record.setResponseData(response.getData());
+
+            writeToAuditFile(record);
+            logger.debug("Audit logged: {}", record.getCorrelationId());
 
         } catch (Exception e) {
             logger.error("Error logging audit information", e);
@@ -66,28 +46,11 @@ public class AuditLogger {
  
     public void logAuditError(GenericRequest request, String errorMessage, long processingTime, String ipAddress) {
         try {
-            String timestamp = LocalDateTime.now().format(formatter);
-            String correlationId = request.getGGheader().getCorrelationId();
-            String operationType = request.getOperationType();
-            String tableName = extractTableNameFromPayload(request);
-            String userId = request.getGGheader().getOriginatingUserIdentifier();
-            String jsonPayload = truncateJsonPayload(request.getJsonPayload());
-
-            String auditMessage = String.format(
-                "AUDIT_ERROR: %s | %s | %s | %s | %s | %s | %dms | ERROR | %s | %s | ",
-                timestamp,
-                correlationId,
-                operationType,
-                tableName,
-                userId,
-                ipAddress,
-                processingTime,
-                errorMessage,
-                jsonPayload
-            );
-
-            writeToAuditFile(auditMessage);
-            logger.debug("Audit error logged: {}", correlationId);
+            AuditRecord record = createRecord(AuditRecord.TYPE_ERROR, request, processingTime, ipAddress,
+                    GenericResponse.INTERNAL_SERVER_ERROR, errorMessage);
+
+            writeToAuditFile(record);
+            logger.debug("Audit error logged: {}", record.getCorrelationId());
 
         } catch (Exception e) {
             logger.error("Error logging audit error information", e);
@@ -99,28 +62,11 @@ public class AuditLogger {
      */
     public void logAuditValidationError(GenericRequest request, String validationError, long processingTime, String ipAddress) {
         try {
-            String timestamp = LocalDateTime.now().format(formatter);
-            String correlationId = request.getGGheader().getCorrelationId();
-            String operationType = request.getOperationType();
-            String tableName = extractTableNameFromPayload(request);
-            String userId = request.getGGheader().getOriginatingUserIdentifier();
-            String jsonPayload = truncateJsonPayload(request.getJsonPayload());
-
-            String auditMessage = String.format(
-                "AUDIT_VALIDATION: %s | %s | %s | %s | %s | %s | %dms | VALIDATION_ERROR | %s | %s | ",
-                timestamp,
-                correlationId,
-                operationType,
-                tableName,
-                userId,
-                ipAddress,
-                processingTime,
-                validationError,
-                jsonPayload
-            );
-
-            writeToAuditFile(auditMessage);
-            logger.debug("Audit validation error logged: {}", correlationId);
+            AuditRecord record = createRecord(AuditRecord.TYPE_VALIDATION, request, processingTime, ipAddress,
+                    GenericResponse.BAD_REQUEST, validationError);
+
+            writeToAuditFile(record);
+            logger.debug("Audit validation error logged: {}", record.getCorrelationId());
 
         } catch (Exception e) {
             logger.error("Error logging audit validation error information", e);
@@ -128,51 +74,48 @@ public class AuditLogger {
     }
 
     /**
-     * Write audit message to file
+     * Build the structured audit record; listName comes from the request's cached parse.
+     * Resource usage is what the request's context has counted so far; the audit is
+     * written before the response is marshalled, so serialization time is not included.
      */
-    private synchronized void writeToAuditFile(String message) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(AUDIT_LOG_FILE, true))) {
-            writer.println(message);
-            writer.flush();
-        } catch (IOException e) {
-            logger.error("Error writing to audit file: {}", AUDIT_LOG_FILE, e);
+    private AuditRecord createRecord(String type, GenericRequest request, long processingTime, String ipAddress,
+                                     int responseCode, String message) {
+        AuditRecord record = new AuditRecord();
+        record.setType(type);
+        record.setTimestamp(System.currentTimeMillis());
+        record.setCorrelationId(request.getGGheader().getCorrelationId());
+        record.setChannelRequestId(request.getGGheader().getChannelRequestId());
+        record.setChannel(request.getGGheader().getOriginatingChannel());
+        record.setUserId(request.getGGheader().getOriginatingUserIdentifier());
+        record.setOperationType(request.getOperationType());
+        record.setIndicator(request.getIndicator());
+        record.setRequestId(request.getId());
+        record.setTableName(request.getListName());
+        record.setIpAddress(ipAddress);
+        record.setProcessingTime(processingTime);
+        record.setResponseCode(responseCode);
+        record.setMessage(message);
+        record.setRequestPayload(request.getJsonPayload());
+        RequestContext context = RequestContext.current();
+        if (context != null) {
+            record.setStatements(context.getStatementCount());
+            record.setRowsRead(context.getRowsRead());
+            record.setRowsWritten(context.getRowsWritten());
+            record.setDbTimeMicros(TimeUnit.NANOSECONDS.toMicros(context.getDbNanos()));
+            record.setConnectionWaitMicros(TimeUnit.NANOSECONDS.toMicros(context.getConnectionWaitNanos()));
+            record.setParseMicros(TimeUnit.NANOSECONDS.toMicros(context.getParseNanos()));
         }
+        return record;
     }
 
     /**
-     * Truncate JSON payload if too long
+     * Hand the audit record to the background writer (no file I/O on the request thread)
      */
-    private String truncateJsonPayload(String jsonPayload) {
-        if (jsonPayload == null || jsonPayload.isEmpty()) {
-            return "";
-        }
-        
-        if (jsonPayload.length() > 1000) {
-            return jsonPayload.substring(0, 1000) + "... [TRUNCATED]";
-        }
-        
-        return jsonPayload;
+    private void writeToAuditFile(AuditRecord record) {
+        auditWriter.append(record);
     }
 
     public String getAuditLogFilePath() {
-        return AUDIT_LOG_FILE;
-    }
-
-    /**
-     * Helper to extract table name from jsonPayload (listName) or fallback to '-'.
-     */
-    private String extractTableNameFromPayload(GenericRequest request) {
-        String jsonPayload = request.getJsonPayload();
-        if (jsonPayload != null && !jsonPayload.trim().isEmpty()) {
-            try {
-                com.fasterxml.jackson.databind.JsonNode node = new com.fasterxml.jackson.databind.ObjectMapper().readTree(jsonPayload);
-                if (node.has("listName") && node.get("listName").isTextual()) {
-                    return node.get("listName").asText();
-                }
-            } catch (Exception e) {
-                // ignore, fallback below
-            }
-        }
-        return "-";
+        return auditWriter.getAuditFile();
     }
-}
\ No newline at end of file
+}
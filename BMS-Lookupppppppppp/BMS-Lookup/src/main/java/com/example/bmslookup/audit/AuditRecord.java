@@ -0,0 +1,421 @@
+package com.example.bmslookup.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One structured audit entry. Request threads only fill in references; the
+ * audit writer thread encodes it into the audit.log line and the binary store,
+ * truncating payloads while writing.
+ *
+ * Binary layout (after the segment's length + CRC prefix):
+ * version, type, timestamp, processingTime, responseCode, then each string
+ * field as an int byte length (-1 for null) followed by UTF-8 bytes.
+ * Version 2 appends the raw indicator and the request id, so stored requests
+ * can be rebuilt for replay; version 1 records decode with both null.
+ * Version 3 appends the request's resource usage: statements (int), then rows
+ * read, rows written, DB time, pool wait and unmarshalling time (longs, times
+ * in microseconds); older records decode with all of them 0.
+ */
+public class AuditRecord {
+
+    public static final String TYPE_AUDIT = "AUDIT";
+    public static final String TYPE_ERROR = "AUDIT_ERROR";
+    public static final String TYPE_VALIDATION = "AUDIT_VALIDATION";
+
+    public static final int MAX_PAYLOAD_CHARS = 1000;
+    public static final String TRUNCATED_SUFFIX = "... [TRUNCATED]";
+
+    private static final byte VERSION = 3;
+    private static final byte VERSION_WITHOUT_USAGE = 2;
+    private static final byte VERSION_WITHOUT_REQUEST = 1;
+    private static final int FIXED_BYTES = 1 + 1 + 8 + 8 + 4;
+    private static final int USAGE_BYTES = 4 + 5 * 8;
+    private static final int STRING_FIELDS = 12;
+    private static final String[] TYPES = {TYPE_AUDIT, TYPE_ERROR, TYPE_VALIDATION};
+
+    private String type;
+    private long timestamp;
+    private long processingTime;
+    private int responseCode;
+    private String correlationId;
+    private String channelRequestId;
+    private String channel;
+    private String userId;
+    private String operationType;
+    private String tableName;
+    private String ipAddress;
+    private String message;
+    private String requestPayload;
+    private String responseData;
+    private String indicator;
+    private String requestId;
+    private int statements;
+    private long rowsRead;
+    private long rowsWritten;
+    private long dbTimeMicros;
+    private long connectionWaitMicros;
+    private long parseMicros;
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getProcessingTime() {
+        return processingTime;
+    }
+
+    public void setProcessingTime(long processingTime) {
+        this.processingTime = processingTime;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public void setResponseCode(int responseCode) {
+        this.responseCode = responseCode;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public String getChannelRequestId() {
+        return channelRequestId;
+    }
+
+    public void setChannelRequestId(String channelRequestId) {
+        this.channelRequestId = channelRequestId;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public void setOperationType(String operationType) {
+        this.operationType = operationType;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public void setIpAddress(String ipAddress) {
+        this.ipAddress = ipAddress;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getRequestPayload() {
+        return requestPayload;
+    }
+
+    public void setRequestPayload(String requestPayload) {
+        this.requestPayload = requestPayload;
+    }
+
+    public String getResponseData() {
+        return responseData;
+    }
+
+    public void setResponseData(String responseData) {
+        this.responseData = responseData;
+    }
+
+    public String getIndicator() {
+        return indicator;
+    }
+
+    public void setIndicator(String indicator) {
+        this.indicator = indicator;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public void setStatements(int statements) {
+        this.statements = statements;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public long getDbTimeMicros() {
+        return dbTimeMicros;
+    }
+
+    public void setDbTimeMicros(long dbTimeMicros) {
+        this.dbTimeMicros = dbTimeMicros;
+    }
+
+    public long getConnectionWaitMicros() {
+        return connectionWaitMicros;
+    }
+
+    public void setConnectionWaitMicros(long connectionWaitMicros) {
+        this.connectionWaitMicros = connectionWaitMicros;
+    }
+
+    public long getParseMicros() {
+        return parseMicros;
+    }
+
+    public void setParseMicros(long parseMicros) {
+        this.parseMicros = parseMicros;
+    }
+
+    /**
+     * Upper bound of the encoded body size (UTF-8 needs at most 3 bytes per UTF-16 char).
+     */
+    int maxEncodedSize() {
+        return FIXED_BYTES + USAGE_BYTES + STRING_FIELDS * 4
+                + 3 * (length(correlationId) + length(channelRequestId) + length(channel) + length(userId)
+                + length(operationType) + length(tableName) + length(ipAddress) + length(message)
+                + length(indicator) + length(requestId))
+                + 3 * (truncatedSize(requestPayload) + truncatedSize(responseData));
+    }
+
+    /**
+     * Encodes the record body (without length/CRC prefix) straight into the buffer,
+     * which must have maxEncodedSize() bytes remaining. Payloads are truncated while encoding.
+     */
+    void encodeTo(ByteBuffer buffer) {
+        buffer.put(VERSION);
+        buffer.put(typeCode(type));
+        buffer.putLong(timestamp);
+        buffer.putLong(processingTime);
+        buffer.putInt(responseCode);
+        putString(buffer, correlationId, false);
+        putString(buffer, channelRequestId, false);
+        putString(buffer, channel, false);
+        putString(buffer, userId, false);
+        putString(buffer, operationType, false);
+        putString(buffer, tableName, false);
+        putString(buffer, ipAddress, false);
+        putString(buffer, message, false);
+        putString(buffer, requestPayload, true);
+        putString(buffer, responseData, true);
+        putString(buffer, indicator, false);
+        putString(buffer, requestId, false);
+        buffer.putInt(statements);
+        buffer.putLong(rowsRead);
+        buffer.putLong(rowsWritten);
+        buffer.putLong(dbTimeMicros);
+        buffer.putLong(connectionWaitMicros);
+        buffer.putLong(parseMicros);
+    }
+
+    /**
+     * Number of leading chars of a payload kept in the audit, never splitting a surrogate pair.
+     */
+    static int truncatedLength(String value) {
+        if (value.length() <= MAX_PAYLOAD_CHARS) {
+            return value.length();
+        }
+        return Character.isHighSurrogate(value.charAt(MAX_PAYLOAD_CHARS - 1)) ? MAX_PAYLOAD_CHARS - 1 : MAX_PAYLOAD_CHARS;
+    }
+
+    /**
+     * Decodes a record body from the buffer's current position.
+     *
+     * @param buffer buffer positioned at the record body
+     * @return decoded record
+     */
+    public static AuditRecord decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION && version != VERSION_WITHOUT_USAGE && version != VERSION_WITHOUT_REQUEST) {
+            throw new IllegalStateException("Unsupported audit record version: " + version);
+        }
+        AuditRecord record = new AuditRecord();
+        int typeCode = buffer.get();
+        record.type = typeCode >= 0 && typeCode < TYPES.length ? TYPES[typeCode] : TYPE_AUDIT;
+        record.timestamp = buffer.getLong();
+        record.processingTime = buffer.getLong();
+        record.responseCode = buffer.getInt();
+        record.correlationId = string(buffer);
+        record.channelRequestId = string(buffer);
+        record.channel = string(buffer);
+        record.userId = string(buffer);
+        record.operationType = string(buffer);
+        record.tableName = string(buffer);
+        record.ipAddress = string(buffer);
+        record.message = string(buffer);
+        record.requestPayload = string(buffer);
+        record.responseData = string(buffer);
+        if (version != VERSION_WITHOUT_REQUEST) {
+            record.indicator = string(buffer);
+            record.requestId = string(buffer);
+        }
+        if (version == VERSION) {
+            record.statements = buffer.getInt();
+            record.rowsRead = buffer.getLong();
+            record.rowsWritten = buffer.getLong();
+            record.dbTimeMicros = buffer.getLong();
+            record.connectionWaitMicros = buffer.getLong();
+            record.parseMicros = buffer.getLong();
+        }
+        return record;
+    }
+
+    /**
+     * Reads only the timestamp of an encoded record body, without decoding the rest.
+     */
+    static long peekTimestamp(ByteBuffer buffer, int bodyPosition) {
+        return buffer.getLong(bodyPosition + 2);
+    }
+
+    private static byte typeCode(String type) {
+        for (byte i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int truncatedSize(String value) {
+        return value == null ? 0 : truncatedLength(value) + TRUNCATED_SUFFIX.length();
+    }
+
+    /**
+     * Writes [int byteLength][UTF-8 bytes] without an intermediate byte[]; -1 length for null.
+     */
+    private static void putString(ByteBuffer buffer, String value, boolean truncate) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int end = truncate ? truncatedLength(value) : value.length();
+        putUtf8(buffer, value, end);
+        if (end < value.length()) {
+            putUtf8(buffer, TRUNCATED_SUFFIX, TRUNCATED_SUFFIX.length());
+        }
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private static void putUtf8(ByteBuffer buffer, String value, int end) {
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "AuditRecord{" +
+                "type='" + type + '\'' +
+                ", timestamp=" + timestamp +
+                ", correlationId='" + correlationId + '\'' +
+                ", channelRequestId='" + channelRequestId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", operationType='" + operationType + '\'' +
+                ", indicator='" + indicator + '\'' +
+                ", responseCode=" + responseCode +
+                ", statements=" + statements +
+                ", dbTimeMicros=" + dbTimeMicros +
+                '}';
+    }
+}
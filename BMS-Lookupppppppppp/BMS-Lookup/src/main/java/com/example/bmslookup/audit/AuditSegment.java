@@ -0,0 +1,712 @@
+package com.example.bmslookup.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One segment of the binary audit store.
+ *
+ * Files:
+ * NAME.seg - records as [int bodyLength][int crc32][body]
+ * NAME.tix - header (minTs, maxTs, recordCount, entryCount) + sparse time index
+ *            entries (max timestamp of all earlier records, record offset)
+ * NAME.hix - hash index entries (keyHash, record offset) sorted by hash
+ * NAME.seg.gz - replaces NAME.seg once an old sealed segment is compressed
+ *
+ * The active segment is appended to by the single audit writer thread and keeps
+ * its indexes in memory; sealing writes the index files and makes it read-only.
+ * Compressed segments stay queryable: a query decompresses the stream only as far
+ * as the records it needs, and skips the segment entirely when the hash index has
+ * no match.
+ */
+class AuditSegment {
+
+    static final String DATA_SUFFIX = ".seg";
+    static final String TIME_INDEX_SUFFIX = ".tix";
+    static final String HASH_INDEX_SUFFIX = ".hix";
+    static final String COMPRESSED_SUFFIX = ".gz";
+
+    private static final int RECORD_HEADER = 8;
+    private static final int TIME_INDEX_HEADER = 8 + 8 + 8 + 4;
+    // Sanity bound for a corrupt length in a compressed segment; real records are a few KB
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final File dataFile;
+    private final String name;
+    private final int sparseInterval;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Active-segment state, owned by the writer thread
+    private FileChannel channel;
+    private ByteBuffer pending;
+    private final CRC32 crc = new CRC32();
+    private long writePosition;
+
+    private final long createdAt;
+
+    private volatile boolean sealed;
+    private volatile boolean compressed;
+    private volatile boolean deleted;
+    private volatile long committedSize;
+    private volatile long minTimestamp = Long.MAX_VALUE;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private long recordCount;
+
+    private long[] timeIndex = new long[64];
+    private int timeIndexSize;
+    private long[] hashIndex = new long[256];
+    private int hashIndexSize;
+
+    private MappedByteBuffer sealedData;
+    private MappedByteBuffer sealedHashIndex;
+
+    private AuditSegment(File dataFile, int sparseInterval) {
+        this.dataFile = dataFile;
+        this.name = dataFile.getName().substring(0, dataFile.getName().length() - DATA_SUFFIX.length());
+        this.sparseInterval = sparseInterval;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Creates a new, empty active segment.
+     */
+    static AuditSegment create(File directory, String name, int sparseInterval, int bufferBytes) throws IOException {
+        AuditSegment segment = new AuditSegment(new File(directory, name + DATA_SUFFIX), sparseInterval);
+        segment.channel = FileChannel.open(segment.dataFile.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segment.pending = ByteBuffer.allocate(Math.max(bufferBytes, 8192));
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment read-only, rebuilding its indexes if they are missing
+     * (e.g. the process stopped before the segment was sealed).
+     */
+    static AuditSegment open(File dataFile, int sparseInterval) throws IOException {
+        AuditSegment segment = new AuditSegment(dataFile, sparseInterval);
+        segment.compressed = !dataFile.exists() && segment.compressedFile().exists();
+        if (segment.indexFile(TIME_INDEX_SUFFIX).exists() && segment.indexFile(HASH_INDEX_SUFFIX).exists()) {
+            segment.loadIndexes();
+        } else {
+            segment.rebuildIndexes();
+        }
+        return segment;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    File getDataFile() {
+        return dataFile;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    boolean isCompressed() {
+        return compressed;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Bytes used on disk by the data and index files.
+     */
+    long getDiskBytes() {
+        return dataFile.length() + compressedFile().length()
+                + indexFile(TIME_INDEX_SUFFIX).length() + indexFile(HASH_INDEX_SUFFIX).length();
+    }
+
+    long getSize() {
+        return sealed ? committedSize : writePosition;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    boolean overlaps(long from, long to) {
+        return recordCount > 0 && minTimestamp <= to && maxTimestamp >= from;
+    }
+
+    /**
+     * Appends a record into the segment's write buffer. Writer thread only.
+     */
+    void append(AuditRecord record) throws IOException {
+        int maxSize = RECORD_HEADER + record.maxEncodedSize();
+        if (pending.remaining() < maxSize) {
+            flush();
+            if (pending.capacity() < maxSize) {
+                pending = ByteBuffer.allocate(maxSize);
+            }
+        }
+        // Encode in place, then fill in the length and CRC prefix
+        int start = pending.position();
+        pending.position(start + RECORD_HEADER);
+        record.encodeTo(pending);
+        int bodyLength = pending.position() - start - RECORD_HEADER;
+        crc.reset();
+        crc.update(pending.array(), pending.arrayOffset() + start + RECORD_HEADER, bodyLength);
+        pending.putInt(start, bodyLength);
+        pending.putInt(start + 4, (int) crc.getValue());
+        long offset = writePosition;
+        writePosition += RECORD_HEADER + bodyLength;
+
+        lock.writeLock().lock();
+        try {
+            indexRecord(record.getTimestamp(), offset, record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes buffered records to the file and makes them visible to queries. Writer thread only.
+     */
+    void flush() throws IOException {
+        if (pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+        committedSize = writePosition;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Flushes, writes the index files and switches the segment to read-only. Writer thread only.
+     */
+    void seal() throws IOException {
+        flush();
+        channel.force(true);
+        channel.close();
+        channel = null;
+        pending = null;
+        lock.writeLock().lock();
+        try {
+            writeIndexes();
+            sealed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds records whose key hash matches, within [from, to]. The caller verifies field values,
+     * since different keys can share a hash.
+     */
+    List<AuditRecord> findByHash(long keyHash, long from, long to) throws IOException {
+        List<AuditRecord> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (deleted) {
+                return results;
+            }
+            long[] offsets = hashOffsets(keyHash);
+            if (offsets.length == 0) {
+                return results;
+            }
+            if (compressed) {
+                Arrays.sort(offsets);
+                try (CompressedReader reader = new CompressedReader(compressedFile())) {
+                    for (long offset : offsets) {
+                        if (!reader.skipTo(offset)) {
+                            break;
+                        }
+                        ByteBuffer data = reader.next();
+                        if (data == null) {
+                            break;
+                        }
+                        addIfInRange(results, read(data, 0), from, to);
+                    }
+                }
+                return results;
+            }
+            ByteBuffer data = data();
+            long visible = data.limit();
+            for (long offset : offsets) {
+                if (offset < visible) {
+                    addIfInRange(results, read(data, (int) offset), from, to);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Scans records within [from, to], starting at the sparse index entry for from.
+     * Records are only approximately time-ordered, so the scan stops once timestamps
+     * pass to by more than the allowed skew.
+     */
+    List<AuditRecord> findByTime(long from, long to, long skewMs, int limit) throws IOException {
+        List<AuditRecord> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (deleted) {
+                return results;
+            }
+            if (compressed) {
+                try (CompressedReader reader = new CompressedReader(compressedFile())) {
+                    if (!reader.skipTo(startOffset(from))) {
+                        return results;
+                    }
+                    ByteBuffer data;
+                    while (results.size() < limit && (data = reader.next()) != null) {
+                        long timestamp = AuditRecord.peekTimestamp(data, RECORD_HEADER);
+                        if (timestamp > to + skewMs) {
+                            break;
+                        }
+                        addIfInRange(results, read(data, 0), from, to);
+                    }
+                }
+                return results;
+            }
+            ByteBuffer data = data();
+            int position = (int) startOffset(from);
+            int end = data.limit();
+            while (position + RECORD_HEADER <= end && results.size() < limit) {
+                int length = data.getInt(position);
+                int bodyPosition = position + RECORD_HEADER;
+                if (length <= 0 || bodyPosition + length > end) {
+                    break;
+                }
+                long timestamp = AuditRecord.peekTimestamp(data, bodyPosition);
+                if (timestamp > to + skewMs) {
+                    break;
+                }
+                if (timestamp >= from && timestamp <= to) {
+                    AuditRecord record = read(data, position);
+                    if (record != null) {
+                        results.add(record);
+                    }
+                }
+                position = bodyPosition + length;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    private static void addIfInRange(List<AuditRecord> results, AuditRecord record, long from, long to) {
+        if (record != null && record.getTimestamp() >= from && record.getTimestamp() <= to) {
+            results.add(record);
+        }
+    }
+
+    /**
+     * Readable view of the segment's committed records, or null once the segment is deleted.
+     * Sealed, uncompressed segments return their cached mapping; callers may keep the buffer.
+     */
+    ByteBuffer readBuffer() throws IOException {
+        lock.readLock().lock();
+        try {
+            return deleted ? null : data();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads up to max records sequentially from offset, skipping records that fail the CRC check.
+     *
+     * @param data    buffer from readBuffer()
+     * @param offset  offset of the first record to read
+     * @param records receives the decoded records
+     * @param offsets receives each record's offset
+     * @return offset just past the last record read
+     */
+    static int readSequential(ByteBuffer data, int offset, int max, List<AuditRecord> records, List<Integer> offsets) {
+        int position = offset;
+        int end = data.limit();
+        while (position + RECORD_HEADER <= end && records.size() < max) {
+            int length = data.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER + length > end) {
+                break;
+            }
+            AuditRecord record = read(data, position);
+            if (record != null) {
+                records.add(record);
+                offsets.add(position);
+            }
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    /**
+     * Replaces the sealed data file with a gzip copy. Runs on the archiver thread;
+     * queries keep working on the old mapping until the switch.
+     */
+    void compress() throws IOException {
+        if (!sealed || compressed || deleted) {
+            return;
+        }
+        File target = compressedFile();
+        File temp = new File(target.getPath() + ".tmp");
+        try (InputStream in = new FileInputStream(dataFile);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(temp), 65536)) {
+            byte[] buffer = new byte[65536];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + target);
+        }
+        lock.writeLock().lock();
+        try {
+            compressed = true;
+            sealedData = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!dataFile.delete()) {
+            throw new IOException("Could not delete " + dataFile + " after compression");
+        }
+    }
+
+    /**
+     * Removes all files of a sealed segment. Runs on the archiver thread.
+     */
+    void delete() {
+        lock.writeLock().lock();
+        try {
+            deleted = true;
+            sealedData = null;
+            sealedHashIndex = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dataFile.delete();
+        compressedFile().delete();
+        indexFile(TIME_INDEX_SUFFIX).delete();
+        indexFile(HASH_INDEX_SUFFIX).delete();
+    }
+
+    /**
+     * Releases file handles and mappings; the segment must not be used afterwards.
+     */
+    void close() {
+        try {
+            if (channel != null) {
+                flush();
+                channel.close();
+            }
+        } catch (IOException e) {
+            // best effort on shutdown
+        }
+        sealedData = null;
+        sealedHashIndex = null;
+    }
+
+    File indexFile(String suffix) {
+        return new File(dataFile.getParentFile(), name + suffix);
+    }
+
+    File compressedFile() {
+        return new File(dataFile.getParentFile(), name + DATA_SUFFIX + COMPRESSED_SUFFIX);
+    }
+
+    private void indexRecord(long timestamp, long offset, AuditRecord record) {
+        if (recordCount % sparseInterval == 0) {
+            // Entry stores the max timestamp of all earlier records, so everything before it is older
+            timeIndex = ensure(timeIndex, timeIndexSize + 2);
+            timeIndex[timeIndexSize++] = maxTimestamp;
+            timeIndex[timeIndexSize++] = offset;
+        }
+        recordCount++;
+        if (timestamp < minTimestamp) {
+            minTimestamp = timestamp;
+        }
+        if (timestamp > maxTimestamp) {
+            maxTimestamp = timestamp;
+        }
+        if (record != null) {
+            addHash(AuditStore.keyHash(AuditStore.KEY_CORRELATION_ID, record.getCorrelationId()), offset);
+            addHash(AuditStore.keyHash(AuditStore.KEY_CHANNEL_REQUEST_ID, record.getChannelRequestId()), offset);
+            addHash(AuditStore.keyHash(AuditStore.KEY_USER_ID, record.getUserId()), offset);
+        }
+    }
+
+    private void addHash(long hash, long offset) {
+        if (hash == 0) {
+            return;
+        }
+        hashIndex = ensure(hashIndex, hashIndexSize + 2);
+        hashIndex[hashIndexSize++] = hash;
+        hashIndex[hashIndexSize++] = offset;
+    }
+
+    private long startOffset(long from) {
+        // Last entry whose "max of earlier records" is still before from
+        long start = 0;
+        for (int i = 0; i < timeIndexSize; i += 2) {
+            if (timeIndex[i] >= from) {
+                break;
+            }
+            start = timeIndex[i + 1];
+        }
+        return start;
+    }
+
+    private long[] hashOffsets(long keyHash) {
+        if (!sealed) {
+            long[] offsets = new long[4];
+            int count = 0;
+            for (int i = 0; i < hashIndexSize; i += 2) {
+                if (hashIndex[i] == keyHash) {
+                    offsets = ensure(offsets, count + 1);
+                    offsets[count++] = hashIndex[i + 1];
+                }
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+        // Binary search the sorted, memory-mapped index for the first matching entry
+        ByteBuffer index = sealedHashIndex;
+        int entries = index.capacity() / 16;
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * 16) < keyHash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long[] offsets = new long[4];
+        int count = 0;
+        for (int i = low; i < entries && index.getLong(i * 16) == keyHash; i++) {
+            offsets = ensure(offsets, count + 1);
+            offsets[count++] = index.getLong(i * 16 + 8);
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    private ByteBuffer data() throws IOException {
+        if (compressed) {
+            return inflate();
+        }
+        if (sealed) {
+            if (sealedData == null) {
+                sealedData = map(dataFile, committedSize);
+            }
+            return sealedData;
+        }
+        // Active segment: map only the committed prefix for this query
+        return map(dataFile, committedSize);
+    }
+
+    private ByteBuffer inflate() throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(compressedFile()), 65536)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Math.max(committedSize, 65536), Integer.MAX_VALUE));
+            byte[] buffer = new byte[65536];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static AuditRecord read(ByteBuffer data, int position) {
+        int length = data.getInt(position);
+        int storedCrc = data.getInt(position + 4);
+        ByteBuffer body = data.duplicate();
+        body.position(position + RECORD_HEADER);
+        body.limit(position + RECORD_HEADER + length);
+        CRC32 crc = new CRC32();
+        crc.update(body.slice());
+        if ((int) crc.getValue() != storedCrc) {
+            return null;
+        }
+        return AuditRecord.decode(body);
+    }
+
+    private void writeIndexes() throws IOException {
+        ByteBuffer time = ByteBuffer.allocate(TIME_INDEX_HEADER + timeIndexSize * 8);
+        time.putLong(minTimestamp).putLong(maxTimestamp).putLong(recordCount).putInt(timeIndexSize / 2);
+        for (int i = 0; i < timeIndexSize; i++) {
+            time.putLong(timeIndex[i]);
+        }
+        writeFile(indexFile(TIME_INDEX_SUFFIX), time);
+
+        int entries = hashIndexSize / 2;
+        long[][] pairs = new long[entries][];
+        for (int i = 0; i < entries; i++) {
+            pairs[i] = new long[] {hashIndex[i * 2], hashIndex[i * 2 + 1]};
+        }
+        Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        ByteBuffer hash = ByteBuffer.allocate(entries * 16);
+        for (long[] pair : pairs) {
+            hash.putLong(pair[0]).putLong(pair[1]);
+        }
+        writeFile(indexFile(HASH_INDEX_SUFFIX), hash);
+
+        committedSize = writePosition;
+        hashIndex = null;
+        hashIndexSize = 0;
+        sealedHashIndex = map(indexFile(HASH_INDEX_SUFFIX), entries * 16L);
+    }
+
+    private void loadIndexes() throws IOException {
+        ByteBuffer time = map(indexFile(TIME_INDEX_SUFFIX), indexFile(TIME_INDEX_SUFFIX).length());
+        minTimestamp = time.getLong();
+        maxTimestamp = time.getLong();
+        recordCount = time.getLong();
+        int entries = time.getInt();
+        timeIndex = new long[entries * 2];
+        for (int i = 0; i < timeIndex.length; i++) {
+            timeIndex[i] = time.getLong();
+        }
+        timeIndexSize = timeIndex.length;
+        hashIndex = null;
+        sealedHashIndex = map(indexFile(HASH_INDEX_SUFFIX), indexFile(HASH_INDEX_SUFFIX).length());
+        committedSize = compressed ? 0 : dataFile.length();
+        writePosition = committedSize;
+        sealed = true;
+    }
+
+    private void rebuildIndexes() throws IOException {
+        ByteBuffer data = compressed ? inflate() : map(dataFile, dataFile.length());
+        long fileSize = data.limit();
+        int position = 0;
+        while (position + RECORD_HEADER <= fileSize) {
+            int length = data.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER + length > fileSize) {
+                break;
+            }
+            AuditRecord record = read(data, position);
+            if (record == null) {
+                break;
+            }
+            indexRecord(record.getTimestamp(), position, record);
+            position += RECORD_HEADER + length;
+        }
+        if (position < fileSize && !compressed) {
+            // Drop a torn tail left by a crash mid-write
+            try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+                file.setLength(position);
+            }
+        }
+        writePosition = position;
+        writeIndexes();
+        sealed = true;
+    }
+
+    private static void writeFile(File file, ByteBuffer content) throws IOException {
+        content.flip();
+        try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+            out.force(true);
+        }
+    }
+
+    private static long[] ensure(long[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    /**
+     * Forward-only reader over a compressed segment, so a query decompresses only up to
+     * the last record it needs and never holds the whole segment in memory.
+     */
+    private static final class CompressedReader implements Closeable {
+
+        private final DataInputStream in;
+        private long position;
+
+        CompressedReader(File file) throws IOException {
+            in = new DataInputStream(new GZIPInputStream(new FileInputStream(file), 65536));
+        }
+
+        /**
+         * @return false if offset is behind the current position or past the end of the data
+         */
+        boolean skipTo(long offset) throws IOException {
+            while (position < offset) {
+                long skipped = in.skip(offset - position);
+                if (skipped <= 0) {
+                    return false;
+                }
+                position += skipped;
+            }
+            return position == offset;
+        }
+
+        /**
+         * @return the next record as [length][crc][body] at index 0, or null at the end of the data
+         */
+        ByteBuffer next() throws IOException {
+            try {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return null;
+                }
+                byte[] record = new byte[RECORD_HEADER + length];
+                ByteBuffer.wrap(record).putInt(length);
+                in.readFully(record, 4, RECORD_HEADER - 4 + length);
+                position += RECORD_HEADER + length;
+                return ByteBuffer.wrap(record);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.bmslookup.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Segmented binary audit store with a sparse time index and a hash index on
+ * correlationId, channelRequestId and user id.
+ *
+ * Records are appended by the single audit writer thread (see AuditWriter);
+ * queries run on any thread and read segments through memory mapping, touching
+ * only segments whose time range overlaps the query.
+ */
+@Component
+public class AuditStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditStore.class);
+
+    static final char KEY_CORRELATION_ID = 'c';
+    static final char KEY_CHANNEL_REQUEST_ID = 'r';
+    static final char KEY_USER_ID = 'u';
+
+    // Records from concurrent requests reach the writer slightly out of time order
+    private static final long TIME_SKEW_MS = 60000;
+
+    @Value("${app.audit.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.store.directory:logs/audit-store}")
+    private String directory;
+
+    @Value("${app.audit.store.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    @Value("${app.audit.store.segment-max-age-ms:3600000}")
+    private long segmentMaxAgeMs;
+
+    @Value("${app.audit.store.sparse-index-interval:64}")
+    private int sparseIndexInterval;
+
+    @Value("${app.audit.store.buffer-bytes:65536}")
+    private int bufferBytes;
+
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    private File storeDirectory;
+    private AuditSegment active;
+    private long segmentCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        storeDirectory = new File(directory);
+        if (!storeDirectory.exists() && !storeDirectory.mkdirs()) {
+            logger.error("Could not create audit store directory: {}", storeDirectory.getAbsolutePath());
+            enabled = false;
+            return;
+        }
+        File[] files = storeDirectory.listFiles((dir, name) -> name.endsWith(AuditSegment.DATA_SUFFIX)
+                || name.endsWith(AuditSegment.DATA_SUFFIX + AuditSegment.COMPRESSED_SUFFIX));
+        if (files != null) {
+            // A segment interrupted mid-compression has both files; open it once, from the plain data file
+            Set<String> dataFiles = new TreeSet<>();
+            for (File file : files) {
+                String name = file.getName();
+                dataFiles.add(name.endsWith(AuditSegment.COMPRESSED_SUFFIX)
+                        ? name.substring(0, name.length() - AuditSegment.COMPRESSED_SUFFIX.length()) : name);
+            }
+            for (String name : dataFiles) {
+                File file = new File(storeDirectory, name);
+                try {
+                    segments.add(AuditSegment.open(file, sparseIndexInterval));
+                } catch (Exception e) {
+                    logger.error("Skipping unreadable audit segment: {}", file, e);
+                }
+            }
+        }
+        logger.info("Audit store opened - directory: {}, existing segments: {}",
+                storeDirectory.getAbsolutePath(), segments.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a record to the active segment, rolling to a new one when it is full or too old.
+     * Writer thread only; rolling only seals the segment, compression happens in the background.
+     */
+    public void append(AuditRecord record) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (active != null && (active.getSize() >= segmentMaxBytes
+                || System.currentTimeMillis() - active.getCreatedAt() >= segmentMaxAgeMs)) {
+            roll();
+        }
+        if (active == null) {
+            active = newSegment();
+        }
+        active.append(record);
+    }
+
+    /**
+     * Makes appended records visible to queries; optionally forces them to disk. Writer thread only.
+     */
+    public void flush(boolean force) throws IOException {
+        if (active != null) {
+            active.flush();
+            if (force) {
+                active.force();
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one on the next append. Writer thread only.
+     */
+    public void roll() throws IOException {
+        if (active != null) {
+            active.seal();
+            logger.info("Sealed audit segment {} - records: {}, bytes: {}",
+                    active.getName(), active.getRecordCount(), active.getSize());
+            active = null;
+        }
+    }
+
+    /**
+     * Finds records by key and/or time range.
+     *
+     * @param correlationId    optional correlationId
+     * @param channelRequestId optional channelRequestId
+     * @param userId           optional originatingUserIdentifier
+     * @param from             start of range (epoch millis), inclusive
+     * @param to               end of range (epoch millis), inclusive
+     * @param limit            maximum number of records returned
+     * @return matching records in time order
+     */
+    public List<AuditRecord> query(String correlationId, String channelRequestId, String userId,
+                                   long from, long to, int limit) throws IOException {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        char key;
+        String value;
+        if (!isEmpty(correlationId)) {
+            key = KEY_CORRELATION_ID;
+            value = correlationId;
+        } else if (!isEmpty(channelRequestId)) {
+            key = KEY_CHANNEL_REQUEST_ID;
+            value = channelRequestId;
+        } else if (!isEmpty(userId)) {
+            key = KEY_USER_ID;
+            value = userId;
+        } else {
+            key = 0;
+            value = null;
+        }
+
+        List<AuditRecord> results = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            if (value == null) {
+                results.addAll(segment.findByTime(from, to, TIME_SKEW_MS, limit - results.size()));
+                if (results.size() >= limit) {
+                    break;
+                }
+                continue;
+            }
+            for (AuditRecord record : segment.findByHash(keyHash(key, value), from, to)) {
+                // Verify every requested field; the hash only narrows the candidates
+                if (matches(correlationId, record.getCorrelationId())
+                        && matches(channelRequestId, record.getChannelRequestId())
+                        && matches(userId, record.getUserId())) {
+                    results.add(record);
+                }
+            }
+        }
+        results.sort(Comparator.comparingLong(AuditRecord::getTimestamp));
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    /**
+     * Snapshot of segment names, sizes and time ranges.
+     */
+    public List<Map<String, Object>> describeSegments() {
+        List<Map<String, Object>> descriptions = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("name", segment.getName());
+            description.put("sealed", segment.isSealed());
+            description.put("compressed", segment.isCompressed());
+            description.put("records", segment.getRecordCount());
+            description.put("bytes", segment.getSize());
+            description.put("diskBytes", segment.getDiskBytes());
+            description.put("from", segment.getRecordCount() > 0 ? segment.getMinTimestamp() : null);
+            description.put("to", segment.getRecordCount() > 0 ? segment.getMaxTimestamp() : null);
+            descriptions.add(description);
+        }
+        return descriptions;
+    }
+
+    /**
+     * Sealed segments, oldest first; the active segment is never included.
+     */
+    List<AuditSegment> sealedSegments() {
+        List<AuditSegment> sealed = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            if (segment.isSealed()) {
+                sealed.add(segment);
+            }
+        }
+        return sealed;
+    }
+
+    /**
+     * First segment whose name is at or after the given name (segment names sort in creation order).
+     */
+    AuditSegment segmentAtOrAfter(String name) {
+        for (AuditSegment segment : segments) {
+            if (name == null || segment.getName().compareTo(name) >= 0) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Newest segment, active or sealed.
+     */
+    AuditSegment latestSegment() {
+        AuditSegment latest = null;
+        for (AuditSegment segment : segments) {
+            latest = segment;
+        }
+        return latest;
+    }
+
+    /**
+     * Drops a sealed segment from queries and deletes its files.
+     */
+    void delete(AuditSegment segment) {
+        segments.remove(segment);
+        segment.delete();
+    }
+
+    @PreDestroy
+    public void close() {
+        for (AuditSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key type and value; 0 means "not indexed".
+     */
+    static long keyHash(char key, String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ key) * 0x100000001b3L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private AuditSegment newSegment() throws IOException {
+        String name = String.format("audit-%d-%04d", System.currentTimeMillis(), segmentCounter++ % 10000);
+        AuditSegment segment = AuditSegment.create(storeDirectory, name, sparseIndexInterval, bufferBytes);
+        segments.add(segment);
+        return segment;
+    }
+
+    private static boolean matches(String expected, String actual) {
+        return isEmpty(expected) || expected.equals(actual);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
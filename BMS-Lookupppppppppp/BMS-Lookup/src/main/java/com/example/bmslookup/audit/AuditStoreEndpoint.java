@@ -0,0 +1,74 @@
+package com.example.bmslookup.audit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint for searching the indexed audit store.
+ *
+ * GET /actuator/auditstore?correlationId=1
+ * GET /actuator/auditstore?userId=2970430001808&from=2025-01-01T00:00:00&to=2025-01-02T00:00:00
+ *
+ * from/to accept epoch millis or ISO local date-time; without a key the range
+ * defaults to the last hour.
+ */
+@Component
+@Endpoint(id = "auditstore")
+public class AuditStoreEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private AuditStore auditStore;
+
+    @ReadOperation
+    public Map<String, Object> query(@Nullable String correlationId, @Nullable String channelRequestId,
+                                     @Nullable String userId, @Nullable String from, @Nullable String to,
+                                     @Nullable Integer limit) throws IOException {
+        long start = System.nanoTime();
+        boolean hasKey = correlationId != null || channelRequestId != null || userId != null;
+        long toMillis = to != null ? parseTime(to) : (hasKey ? Long.MAX_VALUE : System.currentTimeMillis());
+        long fromMillis = from != null ? parseTime(from) : (hasKey ? 0 : toMillis - TimeUnit.HOURS.toMillis(1));
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        List<AuditRecord> records = auditStore.query(correlationId, channelRequestId, userId, fromMillis, toMillis, max);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", records.size());
+        result.put("tookMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        result.put("records", records);
+        return result;
+    }
+
+    /**
+     * GET /actuator/auditstore/segments - segment names, sizes and time ranges.
+     */
+    @ReadOperation
+    public List<Map<String, Object>> view(@Selector String view) {
+        if (!"segments".equals(view)) {
+            throw new IllegalArgumentException("Unknown audit store view: " + view);
+        }
+        return auditStore.describeSegments();
+    }
+
+    private static long parseTime(String value) {
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(trimmed);
+        }
+        return LocalDateTime.parse(trimmed).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.bmslookup.audit;
+
+import com.example.bmslookup.jfr.FlightEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group-commit writer for the audit file.
+ * Request threads only enqueue a record into a lock-free ring buffer; a single
+ * background thread keeps the file open, drains the buffer and flushes in
+ * groups when flush-bytes have accumulated or flush-interval-ms has elapsed.
+ * While the buffer is empty the writer parks until the next append wakes it or
+ * the pending group is due, so an idle service costs no wakeups.
+ * The same thread appends each record to the indexed AuditStore.
+ *
+ * Durability modes:
+ * os    - write and flush to the OS page cache, the OS decides when to hit disk
+ * fsync - additionally force the file to disk once per group
+ *
+ * The file is rotated by size or age on this thread; AuditArchiver compresses
+ * and purges the rotated files in the background.
+ */
+@Component
+public class AuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditWriter.class);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final DateTimeFormatter ARCHIVE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private AuditStore auditStore;
+
+    @Value("${app.audit.file:logs/audit.log}")
+    private String auditFile;
+
+    @Value("${app.audit.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${app.audit.flush-bytes:65536}")
+    private int flushBytes;
+
+    @Value("${app.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.durability:os}")
+    private String durability;
+
+    @Value("${app.audit.block-when-full:true}")
+    private boolean blockWhenFull;
+
+    @Value("${app.audit.rotation.max-bytes:104857600}")
+    private long rotationMaxBytes;
+
+    @Value("${app.audit.rotation.interval-ms:86400000}")
+    private long rotationIntervalMs;
+
+    private AuditRingBuffer<AuditRecord> ring;
+    private final AuditLineEncoder lineEncoder = new AuditLineEncoder();
+    private Thread writerThread;
+    private volatile boolean running;
+    // Set while the writer is parked on an empty buffer; producers unpark it only then
+    private volatile boolean idle;
+
+    private FileChannel fileChannel;
+    private Utf8CountingWriter writer;
+    private boolean fsync;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong fullWaits = new AtomicLong();
+    private long fileBytes;
+    private long openedAt;
+    private long written;
+    private long groups;
+    private long writtenAtLastFlush;
+
+    @PostConstruct
+    public void start() {
+        ring = new AuditRingBuffer<>(ringSize);
+        fsync = "fsync".equalsIgnoreCase(durability);
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Audit writer started - file: {}, ring: {}, flush: {} bytes / {}ms, durability: {}",
+                auditFile, ring.capacity(), flushBytes, flushIntervalMs, fsync ? "fsync" : "os");
+    }
+
+    /**
+     * Enqueues one audit record. Never performs I/O on the calling thread.
+     *
+     * @param record audit record
+     */
+    public void append(AuditRecord record) {
+        if (ring.offer(record)) {
+            wakeWriter();
+            return;
+        }
+        if (!blockWhenFull || !running) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // Buffer full: the writer is behind the disk, wait briefly instead of losing audit records
+        fullWaits.incrementAndGet();
+        while (!ring.offer(record)) {
+            if (!running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        wakeWriter();
+    }
+
+    private void wakeWriter() {
+        if (idle) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    public String getAuditFile() {
+        return auditFile;
+    }
+
+    /**
+     * Rotated files are named PREFIX + timestamp + SUFFIX, e.g. audit-20250101-000000.log.
+     */
+    public String getArchivePrefix() {
+        String name = new File(auditFile).getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "-";
+    }
+
+    public String getArchiveSuffix() {
+        String name = new File(auditFile).getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot) : "";
+    }
+
+    public int getQueuedCount() {
+        return ring.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFullWaitCount() {
+        return fullWaits.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Audit writer stopped - written: {}, groups: {}, dropped: {}", written, groups, dropped.get());
+    }
+
+    private void runWriter() {
+        while (running || ring.size() > 0) {
+            try {
+                open();
+                drain();
+                return;
+            } catch (IOException e) {
+                // Keep the thread alive so producers never wait on a dead writer; retry with a fresh handle
+                logger.error("Error writing to audit file: {}", auditFile, e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            } finally {
+                close();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        long pendingBytes = 0;
+        long lastFlush = System.nanoTime();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running || ring.size() > 0) {
+            AuditRecord record = ring.poll();
+            if (record != null) {
+                if (fileBytes >= rotationMaxBytes || System.currentTimeMillis() - openedAt >= rotationIntervalMs) {
+                    flushGroup(pendingBytes);
+                    pendingBytes = 0;
+                    lastFlush = System.nanoTime();
+                    rotate();
+                }
+                long before = writer.getBytes();
+                lineEncoder.encode(record, writer);
+                writer.write('\n');
+                long bytes = writer.getBytes() - before;
+                pendingBytes += bytes;
+                fileBytes += bytes;
+                written++;
+                appendToStore(record);
+                if (pendingBytes >= flushBytes) {
+                    flushGroup(pendingBytes);
+                    pendingBytes = 0;
+                    lastFlush = System.nanoTime();
+                }
+                continue;
+            }
+            if (pendingBytes > 0 && System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                flushGroup(pendingBytes);
+                pendingBytes = 0;
+                lastFlush = System.nanoTime();
+            }
+            long parkNanos = pendingBytes > 0 ? flushIntervalNanos - (System.nanoTime() - lastFlush) : flushIntervalNanos;
+            // Publish idle before re-checking the buffer, so an append racing with this check still unparks
+            idle = true;
+            if (running && ring.size() == 0 && parkNanos > 0) {
+                LockSupport.parkNanos(this, parkNanos);
+            }
+            idle = false;
+        }
+        flushGroup(pendingBytes);
+        // Seal on shutdown so the next start does not have to rebuild the segment's indexes
+        auditStore.roll();
+    }
+
+    private void open() throws IOException {
+        File file = new File(auditFile);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            logger.warn("Could not create audit directory: {}", parent);
+        }
+        FileOutputStream fileStream = new FileOutputStream(file, true);
+        fileChannel = fileStream.getChannel();
+        writer = new Utf8CountingWriter(new BufferedWriter(
+                new OutputStreamWriter(fileStream, StandardCharsets.UTF_8), Math.max(flushBytes, 8192)));
+        fileBytes = file.length();
+        openedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Renames the current file to audit-yyyyMMdd-HHmmss.log and reopens a fresh one.
+     * Runs on the writer thread, so request threads only ever see a slightly fuller ring buffer;
+     * compression and retention of the archive happen later on the archiver thread.
+     */
+    private void rotate() throws IOException {
+        close();
+        File file = new File(auditFile);
+        String stamp = LocalDateTime.now().format(ARCHIVE_FORMAT);
+        File archive = new File(file.getAbsoluteFile().getParentFile(), getArchivePrefix() + stamp + getArchiveSuffix());
+        for (int i = 1; archive.exists(); i++) {
+            archive = new File(file.getAbsoluteFile().getParentFile(), getArchivePrefix() + stamp + "-" + i + getArchiveSuffix());
+        }
+        if (file.exists() && !file.renameTo(archive)) {
+            logger.error("Could not rotate audit file {} to {}", file, archive);
+        } else {
+            logger.info("Rotated audit file to {}", archive.getName());
+        }
+        open();
+    }
+
+    private void flushGroup(long bytes) throws IOException {
+        Object flightEvent = FlightEvents.beginAuditFlush();
+        writer.flush();
+        if (fsync) {
+            fileChannel.force(false);
+        }
+        try {
+            auditStore.flush(fsync);
+        } catch (IOException e) {
+            logger.error("Error flushing audit store", e);
+        }
+        groups++;
+        FlightEvents.commitAuditFlush(flightEvent, written - writtenAtLastFlush, bytes, fsync);
+        writtenAtLastFlush = written;
+    }
+
+    /**
+     * The indexed store is secondary to the text file; its failures must not stop the text audit.
+     */
+    private void appendToStore(AuditRecord record) {
+        try {
+            auditStore.append(record);
+        } catch (IOException e) {
+            logger.error("Error appending to audit store - CorrelationId: {}", record.getCorrelationId(), e);
+        }
+    }
+
+    private void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        } catch (IOException e) {
+            logger.error("Error closing audit file: {}", auditFile, e);
+        }
+    }
+
+    /**
+     * Counts the UTF-8 encoded size of what is written, so rotation and group
+     * sizes are in file bytes rather than chars (Arabic text is 2 bytes a char).
+     */
+    private static class Utf8CountingWriter extends FilterWriter {
+
+        private long bytes;
+
+        Utf8CountingWriter(Writer out) {
+            super(out);
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            bytes += utf8Length((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            for (int i = off; i < off + len; i++) {
+                bytes += utf8Length(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            for (int i = off; i < off + len; i++) {
+                bytes += utf8Length(str.charAt(i));
+            }
+        }
+
+        /**
+         * Each half of a surrogate pair counts 2, for the pair's 4 bytes.
+         */
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800 || Character.isSurrogate(c)) {
+                return 2;
+            }
+            return 3;
+        }
+    }
+}
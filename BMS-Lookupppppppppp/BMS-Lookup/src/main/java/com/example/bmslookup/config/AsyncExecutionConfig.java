@@ -0,0 +1,108 @@
+package com.example.bmslookup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor used by the async SOAP dispatch mode.
+ * Sized to the Hikari pool so DB concurrency is bounded independently of
+ * the number of Tomcat connections.
+ */
+@Configuration
+public class AsyncExecutionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncExecutionConfig.class);
+
+    private static final String VIRTUAL_THREADS_PROPERTY = "app.threads.virtual.enabled";
+    private static final String VIRTUAL_THREAD_CONFIG = "com.example.bmslookup.config.VirtualThreadConfig";
+
+    @Value("${app.ws.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maximumPoolSize;
+
+    @Value("${app.ws.async.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${app.ws.batch.threads:16}")
+    private int batchThreads;
+
+    @Value("${app.threads.virtual.enabled:false}")
+    private String virtualThreadsEnabled;
+
+    /**
+     * Bounded executor running SOAP requests off the servlet threads.
+     * Replaced by a virtual-thread executor in the java21 build (app.threads.virtual.enabled);
+     * kept, with a warning, when the flag is set on a build without virtual-thread support.
+     *
+     * @return configured executor
+     */
+    @Bean(name = "soapExecutor")
+    @Conditional(PlatformSoapExecutorCondition.class)
+    public ThreadPoolTaskExecutor soapExecutor() {
+        if (isTrue(virtualThreadsEnabled)) {
+            logger.warn("{}=true but this build has no virtual-thread support (build with -Pjava21 on Java 21); "
+                    + "using platform threads for Tomcat and the SOAP executor", VIRTUAL_THREADS_PROPERTY);
+        }
+        logger.info("Configuring SOAP executor: threads={}, queue={}", maximumPoolSize, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maximumPoolSize);
+        executor.setMaxPoolSize(maximumPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("soap-db-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Executor running the items of a GenericBatchRequest concurrently.
+     * Kept separate from soapExecutor so a batch running on it can never wait on
+     * its own pool; when all threads are busy the item runs on the caller thread.
+     * DB concurrency is still bounded by the priority scheduler permits when it is
+     * enabled, and by the connection pool otherwise.
+     *
+     * @return configured executor
+     */
+    @Bean(name = "batchExecutor")
+    public ThreadPoolTaskExecutor batchExecutor() {
+        logger.info("Configuring batch item executor: threads={}", batchThreads);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchThreads);
+        executor.setMaxPoolSize(batchThreads);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("soap-batch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private static boolean isTrue(String value) {
+        return value != null && "true".equalsIgnoreCase(value.trim());
+    }
+
+    /**
+     * Matches unless VirtualThreadConfig will provide soapExecutor, i.e. unless the
+     * flag is true and the java21 sources were compiled in.
+     */
+    static class PlatformSoapExecutorCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !isTrue(context.getEnvironment().getProperty(VIRTUAL_THREADS_PROPERTY))
+                    || !ClassUtils.isPresent(VIRTUAL_THREAD_CONFIG, context.getClassLoader());
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.bmslookup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.ws.transport.http.MessageDispatcherServlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MessageDispatcherServlet that hands SOAP POSTs to a bounded executor and
+ * releases the Tomcat worker while the request waits for Teradata.
+ * WSDL/XSD GETs are still served inline.
+ */
+public class AsyncMessageDispatcherServlet extends MessageDispatcherServlet {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncMessageDispatcherServlet.class);
+
+    private final AsyncTaskExecutor executor;
+    private final long asyncTimeout;
+
+    public AsyncMessageDispatcherServlet(AsyncTaskExecutor executor, long asyncTimeout) {
+        this.executor = executor;
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    @Override
+    protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        if (!"POST".equals(request.getMethod()) || !request.isAsyncSupported()) {
+            super.doService(request, response);
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeout);
+        AsyncState state = new AsyncState();
+        asyncContext.addListener(new TimeoutListener(state));
+
+        try {
+            state.future = executor.submit(() -> dispatch(asyncContext, state));
+        } catch (TaskRejectedException e) {
+            log.warn("SOAP executor saturated, rejecting request from {}", request.getRemoteAddr());
+            if (state.complete()) {
+                sendUnavailable(response);
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Runs the regular Spring-WS dispatch on an executor thread.
+     */
+    private void dispatch(AsyncContext asyncContext, AsyncState state) {
+        if (!state.started.compareAndSet(false, true) || state.completed.get()) {
+            // Timed out while queued; the listener has already answered
+            return;
+        }
+        HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        HttpServletResponse response = new CompletionGuardResponse(
+                (HttpServletResponse) asyncContext.getResponse(), state.completed);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            super.doService(request, response);
+        } catch (Exception e) {
+            if (state.completed.get()) {
+                log.warn("Async SOAP request finished after its timeout, response discarded: {}", e.toString());
+            } else {
+                log.error("Error dispatching async SOAP request", e);
+                try {
+                    if (!response.isCommitted()) {
+                        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    }
+                } catch (IOException ioe) {
+                    log.warn("Could not send error response", ioe);
+                }
+            }
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            if (state.complete()) {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    private static void sendUnavailable(HttpServletResponse response) throws IOException {
+        if (!response.isCommitted()) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service busy, retry later");
+        }
+    }
+
+    /**
+     * Shared between the container thread, the timeout listener and the worker.
+     * Whoever completes first answers the client; the others must not touch the
+     * response, which the container recycles after complete().
+     */
+    private static class AsyncState {
+
+        final AtomicBoolean started = new AtomicBoolean(false);
+        final AtomicBoolean completed = new AtomicBoolean(false);
+        volatile Future<?> future;
+
+        /**
+         * @return true for the one caller that gets to complete the request
+         */
+        boolean complete() {
+            return completed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Answers 503 for requests that time out, and cancels the worker. A request
+     * still queued is never started; one already running is interrupted and its
+     * late writes are dropped by CompletionGuardResponse. The timeout should
+     * exceed the query timeout, so a running query normally ends on its own first.
+     */
+    private static class TimeoutListener implements AsyncListener {
+
+        private final AsyncState state;
+
+        TimeoutListener(AsyncState state) {
+            this.state = state;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!state.complete()) {
+                return;
+            }
+            boolean running = state.started.getAndSet(true);
+            Future<?> future = state.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+            if (running) {
+                log.warn("SOAP request timed out while running, worker cancelled");
+            } else {
+                log.warn("SOAP request timed out in executor queue");
+            }
+            sendUnavailable((HttpServletResponse) event.getAsyncContext().getResponse());
+            event.getAsyncContext().complete();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Response seen by the worker: once the request has been completed by the
+     * timeout listener, status, headers and body writes fail instead of reaching
+     * a response the container may already have recycled for another request.
+     */
+    private static class CompletionGuardResponse extends HttpServletResponseWrapper {
+
+        private final AtomicBoolean completed;
+        private ServletOutputStream outputStream;
+
+        CompletionGuardResponse(HttpServletResponse response, AtomicBoolean completed) {
+            super(response);
+            this.completed = completed;
+        }
+
+        private void checkOpen() throws IOException {
+            if (completed.get()) {
+                throw new IOException("Async request already completed");
+            }
+        }
+
+        private boolean isOpen() {
+            return !completed.get();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            checkOpen();
+            if (outputStream == null) {
+                outputStream = new GuardedOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            checkOpen();
+            return new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            checkOpen();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            checkOpen();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            checkOpen();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            if (isOpen()) {
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (isOpen()) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (isOpen()) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            if (isOpen()) {
+                super.setContentType(type);
+            }
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return completed.get() || super.isCommitted();
+        }
+
+        private class GuardedOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            GuardedOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                checkOpen();
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                checkOpen();
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                checkOpen();
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                checkOpen();
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return isOpen() && delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.bmslookup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Inflates request bodies sent with "Content-Encoding: gzip".
+ * Response compression is handled by the embedded Tomcat (server.compression.*).
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GzipRequestFilter.class);
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private final long maxInflatedSize;
+
+    public GzipRequestFilter(long maxInflatedSize) {
+        this.maxInflatedSize = maxInflatedSize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(CONTENT_ENCODING);
+        if (encoding != null && encoding.toLowerCase().contains("gzip")) {
+            logger.debug("Inflating gzip request body for {}", request.getRequestURI());
+            filterChain.doFilter(new GzipRequestWrapper(request, maxInflatedSize), response);
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Request wrapper exposing the inflated body and hiding the gzip headers.
+     */
+    private static class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+        private final long maxInflatedSize;
+        private ServletInputStream inputStream;
+
+        GzipRequestWrapper(HttpServletRequest request, long maxInflatedSize) {
+            super(request);
+            this.maxInflatedSize = maxInflatedSize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new GzipServletInputStream(super.getInputStream(), maxInflatedSize);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(name)) {
+                return null;
+            }
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (CONTENT_ENCODING.equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+    }
+
+    /**
+     * Servlet stream over the gzip stream, refusing bodies that inflate past the limit.
+     *
+     * Blocking reads inflate straight from the container stream. With a
+     * ReadListener (Servlet 3.1 non-blocking I/O) the compressed body is first
+     * drained into memory as the container reports it ready, since inflating
+     * cannot stop halfway through a deflate block without blocking; once it has
+     * all arrived the listener is told the inflated body is available.
+     */
+    private static class GzipServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream source;
+        private final long maxInflatedSize;
+        private InputStream delegate;
+        private ByteArrayOutputStream compressed;
+        private volatile boolean ready = true;
+        private long bytesRead;
+        private boolean finished;
+
+        GzipServletInputStream(ServletInputStream source, long maxInflatedSize) {
+            this.source = source;
+            this.maxInflatedSize = maxInflatedSize;
+        }
+
+        private InputStream delegate() throws IOException {
+            if (delegate == null) {
+                delegate = new GZIPInputStream(compressed != null
+                        ? new ByteArrayInputStream(compressed.toByteArray()) : source);
+                compressed = null;
+            }
+            return delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate().read();
+            if (b == -1) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate().read(buffer, offset, length);
+            if (n == -1) {
+                finished = true;
+            } else {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            bytesRead += n;
+            if (bytesRead > maxInflatedSize) {
+                throw new IOException("Inflated request body exceeds " + maxInflatedSize + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (readListener == null) {
+                throw new NullPointerException("readListener");
+            }
+            if (delegate != null) {
+                throw new IllegalStateException("Request body is already being read");
+            }
+            ready = false;
+            compressed = new ByteArrayOutputStream();
+            source.setReadListener(new ReadListener() {
+                private final byte[] buffer = new byte[8192];
+
+                @Override
+                public void onDataAvailable() throws IOException {
+                    int n;
+                    while (source.isReady() && (n = source.read(buffer)) != -1) {
+                        compressed.write(buffer, 0, n);
+                        if (compressed.size() > maxInflatedSize) {
+                            throw new IOException("Compressed request body exceeds " + maxInflatedSize + " bytes");
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    ready = true;
+                    readListener.onDataAvailable();
+                    readListener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    readListener.onError(t);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            } else {
+                source.close();
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.bmslookup.config;
 
+import com.example.bmslookup.jdbc.ConnectionTracker;
+import com.example.bmslookup.jdbc.InstrumentedDataSource;
+import com.example.bmslookup.jdbc.QueryBand;
+import com.example.bmslookup.jdbc.StatementMetrics;
+import com.example.bmslookup.jdbc.TableVersions;
+import com.example.bmslookup.tracing.Tracer;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +33,8 @@ public class JdbcConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcConfig.class);
 
+    private static final String TERADATA_DRIVER = "com.teradata.jdbc.TeraDriver";
+
     @Value("${spring.datasource.url}")
     private String databaseUrl;
 
@@ -35,6 +44,9 @@ public class JdbcConfig {
     @Value("${spring.datasource.password}")
     private String password;
 
+    @Value("${spring.datasource.driver-class-name:" + TERADATA_DRIVER + "}")
+    private String driverClassName;
+
     @Value("${spring.datasource.hikari.maximum-pool-size:10}")
     private int maximumPoolSize;
 
@@ -53,6 +65,27 @@ public class JdbcConfig {
     @Value("${spring.datasource.hikari.leak-detection-threshold:60000}")
     private long leakDetectionThreshold;
 
+    @Value("${app.jdbc.instrumentation.enabled:true}")
+    private boolean instrumentationEnabled;
+
+    @Value("${app.jdbc.query-band.enabled:true}")
+    private boolean queryBandEnabled;
+
+    @Autowired
+    private StatementMetrics statementMetrics;
+
+    @Autowired
+    private ConnectionTracker connectionTracker;
+
+    @Autowired
+    private QueryBand queryBand;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private TableVersions tableVersions;
+
     /**
      * Configures the HikariCP DataSource for Teradata.
      * 
@@ -68,7 +101,7 @@ public class JdbcConfig {
         config.setJdbcUrl(databaseUrl);
         config.setUsername(username);
         config.setPassword(password);
-        config.setDriverClassName("com.teradata.jdbc.TeraDriver");
+        config.setDriverClassName(driverClassName);
 
         // Pool settings
         config.setMaximumPoolSize(maximumPoolSize);
@@ -78,26 +111,29 @@ public class JdbcConfig {
         config.setMaxLifetime(maxLifetime);
         config.setLeakDetectionThreshold(leakDetectionThreshold);
 
-        // Teradata-specific settings
-        config.addDataSourceProperty("TMODE", "TERA");
-        config.addDataSourceProperty("CHARSET", "UTF8");
-        config.addDataSourceProperty("LOGMECH", "LDAP");
-        config.addDataSourceProperty("DBS_PORT", "1025");
-        config.addDataSourceProperty("SESSIONS", "1");
-        config.addDataSourceProperty("MAX_SESSIONS", "10");
-        config.addDataSourceProperty("SESSIONS_PER_USER", "5");
-        config.addDataSourceProperty("MAX_SESSIONS_PER_USER", "10");
-
-        // Performance settings
-        config.addDataSourceProperty("QUERY_BAND", "BMS_LOOKUP_SERVICE");
-        config.addDataSourceProperty("QUERY_TIMEOUT", "300");
-        config.addDataSourceProperty("LOGIN_TIMEOUT", "30");
-        config.addDataSourceProperty("SOCKET_TIMEOUT", "300");
-
-        // Security settings
-        config.addDataSourceProperty("ENCRYPT_DATA", "true");
-        config.addDataSourceProperty("ENCRYPT_METHOD", "SSL");
-        config.addDataSourceProperty("TRUSTED_CERTIFICATE", "true");
+        // Driver properties only apply to Teradata; the load-test stand-in database takes none
+        if (TERADATA_DRIVER.equals(driverClassName)) {
+            // Teradata-specific settings
+            config.addDataSourceProperty("TMODE", "TERA");
+            config.addDataSourceProperty("CHARSET", "UTF8");
+            config.addDataSourceProperty("LOGMECH", "LDAP");
+            config.addDataSourceProperty("DBS_PORT", "1025");
+            config.addDataSourceProperty("SESSIONS", "1");
+            config.addDataSourceProperty("MAX_SESSIONS", "10");
+            config.addDataSourceProperty("SESSIONS_PER_USER", "5");
+            config.addDataSourceProperty("MAX_SESSIONS_PER_USER", "10");
+
+            // Performance settings
+            config.addDataSourceProperty("QUERY_BAND", "BMS_LOOKUP_SERVICE");
+            config.addDataSourceProperty("QUERY_TIMEOUT", "300");
+            config.addDataSourceProperty("LOGIN_TIMEOUT", "30");
+            config.addDataSourceProperty("SOCKET_TIMEOUT", "300");
+
+            // Security settings
+            config.addDataSourceProperty("ENCRYPT_DATA", "true");
+            config.addDataSourceProperty("ENCRYPT_METHOD", "SSL");
+            config.addDataSourceProperty("TRUSTED_CERTIFICATE", "true");
+        }
 
         // Connection pool settings
         config.setPoolName("BMSLookupHikariPool");
@@ -117,6 +153,15 @@ public class JdbcConfig {
         testConnection(dataSource);
 
         logger.info("DataSource configured successfully");
+
+        // Per-SQL-shape statement timing; unwrap(HikariDataSource.class) still reaches the pool
+        if (instrumentationEnabled) {
+            logger.info("JDBC statement instrumentation enabled");
+            // SET QUERY_BAND is Teradata SQL; the load-test stand-in database has no query bands
+            boolean perRequestBand = queryBandEnabled && TERADATA_DRIVER.equals(driverClassName);
+            return new InstrumentedDataSource(dataSource, statementMetrics, connectionTracker,
+                    perRequestBand ? queryBand : null, tracer, tableVersions);
+        }
         return dataSource;
     }
 
@@ -190,9 +235,8 @@ public class JdbcConfig {
      * @param dataSource DataSource to monitor
      */
     public void monitorConnectionPool(DataSource dataSource) {
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-
+        HikariDataSource hikariDataSource = unwrapHikari(dataSource);
+        if (hikariDataSource != null) {
             logger.info("=== Connection Pool Status ===");
             logger.info("Active Connections: {}", hikariDataSource.getHikariPoolMXBean().getActiveConnections());
             logger.info("Idle Connections: {}", hikariDataSource.getHikariPoolMXBean().getIdleConnections());
@@ -207,10 +251,24 @@ public class JdbcConfig {
      * @param dataSource DataSource to close
      */
     public void closeDataSource(DataSource dataSource) {
-        if (dataSource instanceof HikariDataSource) {
-            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+        HikariDataSource hikariDataSource = unwrapHikari(dataSource);
+        if (hikariDataSource != null) {
             hikariDataSource.close();
             logger.info("DataSource closed successfully");
         }
     }
+
+    /**
+     * Returns the Hikari pool behind the DataSource, seeing through wrappers.
+     *
+     * @param dataSource DataSource, possibly wrapped
+     * @return pool, or null if the DataSource is not backed by Hikari
+     */
+    private HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package com.example.bmslookup.config;
+
+import com.example.bmslookup.tracing.ServiceTracingInterceptor;
+import com.example.bmslookup.tracing.Tracer;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Service-level tracing spans.
+ * The advisor is an infrastructure bean, so the auto-proxy creator registered for
+ * @Transactional picks it up and adds it to the service proxies; no AspectJ needed.
+ */
+@Configuration
+public class TracingConfig {
+
+    private static final String SERVICE_PACKAGE = "com.example.bmslookup.service.";
+
+    /**
+     * Traces public methods declared by classes in the service package.
+     *
+     * @param tracer request tracer
+     * @return advisor applied to service beans
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true", matchIfMissing = true)
+    public static Advisor serviceTracingAdvisor(Tracer tracer) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return targetClass.getName().startsWith(SERVICE_PACKAGE)
+                        && Modifier.isPublic(method.getModifiers())
+                        && method.getDeclaringClass() != Object.class;
+            }
+        };
+        return new DefaultPointcutAdvisor(pointcut, new ServiceTracingInterceptor(tracer));
+    }
+}
@@ -1,33 +1,77 @@
 package com.example.bmslookup.config;
 
+import com.example.bmslookup.dto.GenericBatchRequest;
+import com.example.bmslookup.dto.GenericBatchResponse;
+import com.example.bmslookup.dto.GenericRequest;
+import com.example.bmslookup.dto.GenericResponse;
+import com.example.bmslookup.endpoint.ResourceUsageInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.ws.config.annotation.EnableWs;
 import org.springframework.ws.config.annotation.WsConfigurerAdapter;
 import org.springframework.ws.server.EndpointInterceptor;
+import org.springframework.ws.server.endpoint.adapter.DefaultMethodEndpointAdapter;
+import org.springframework.ws.server.endpoint.adapter.method.MarshallingPayloadMethodProcessor;
+import org.springframework.ws.server.endpoint.adapter.method.MethodReturnValueHandler;
 import org.springframework.ws.soap.server.endpoint.interceptor.PayloadValidatingInterceptor;
 import org.springframework.ws.transport.http.MessageDispatcherServlet;
 import org.springframework.ws.wsdl.wsdl11.DefaultWsdl11Definition;
 import org.springframework.xml.xsd.SimpleXsdSchema;
 import org.springframework.xml.xsd.XsdSchema;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
 @EnableWs
 public class WebServiceConfig extends WsConfigurerAdapter {
 
-  
+    @Value("${app.ws.gzip.max-inflated-size:10485760}")
+    private long gzipMaxInflatedSize;
+
+    @Value("${app.ws.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${app.ws.async.timeout:330000}")
+    private long asyncTimeout;
+
+    @Value("${app.ws.resource-usage-headers.enabled:true}")
+    private boolean resourceUsageHeadersEnabled;
+
     @Bean
-    public ServletRegistrationBean<MessageDispatcherServlet> messageDispatcherServlet(ApplicationContext applicationContext) {
-        MessageDispatcherServlet servlet = new MessageDispatcherServlet();
+    public ServletRegistrationBean<MessageDispatcherServlet> messageDispatcherServlet(ApplicationContext applicationContext,
+                                                                                      @Qualifier("soapExecutor") AsyncTaskExecutor soapExecutor) {
+        // Async mode releases the Tomcat thread while the request waits on the DB executor
+        MessageDispatcherServlet servlet = asyncEnabled
+                ? new AsyncMessageDispatcherServlet(soapExecutor, asyncTimeout)
+                : new MessageDispatcherServlet();
         servlet.setApplicationContext(applicationContext);
         servlet.setTransformWsdlLocations(true);
         
-        return new ServletRegistrationBean<>(servlet, "/ws/*");
+        ServletRegistrationBean<MessageDispatcherServlet> registration = new ServletRegistrationBean<>(servlet, "/ws/*");
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+
+    /**
+     * فك ضغط طلبات SOAP المرسلة بـ Content-Encoding: gzip
+     */
+    @Bean
+    public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter() {
+        FilterRegistrationBean<GzipRequestFilter> registration =
+                new FilterRegistrationBean<>(new GzipRequestFilter(gzipMaxInflatedSize));
+        registration.addUrlPatterns("/ws/*");
+        return registration;
     }
 
  
@@ -73,6 +117,46 @@ public class WebServiceConfig extends WsConfigurerAdapter {
     public void addInterceptors(List<EndpointInterceptor> interceptors) {
         // Temporarily disabled XSD validation to fix startup issue
         // interceptors.add(payloadValidatingInterceptor());
+
+        // First, so parse/serialize timing covers the other interceptors
+        if (resourceUsageHeadersEnabled) {
+            interceptors.add(new ResourceUsageInterceptor());
+        }
+    }
+
+    /**
+     * وضع MTOM: تسجيل JAXB marshaller يدعم المرفقات قبل المعالجات الافتراضية
+     *
+     * The default XmlRootElementPayloadMethodProcessor marshals without attachment
+     * support, and handlers added through addReturnValueHandlers come after it, so
+     * the MTOM-enabled marshaller is put first in the adapter's list. UHIEndpoint
+     * moves large data into dataAttachment; JAXB then writes it as an XOP part.
+     */
+    @Bean
+    public static BeanPostProcessor mtomReturnValueHandler(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DefaultMethodEndpointAdapter
+                        && environment.getProperty("app.ws.mtom.enabled", Boolean.class, false)) {
+                    Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+                    marshaller.setClassesToBeBound(GenericRequest.class, GenericResponse.class,
+                            GenericBatchRequest.class, GenericBatchResponse.class);
+                    marshaller.setMtomEnabled(true);
+                    try {
+                        marshaller.afterPropertiesSet();
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Could not create MTOM marshaller", e);
+                    }
+                    DefaultMethodEndpointAdapter adapter = (DefaultMethodEndpointAdapter) bean;
+                    List<MethodReturnValueHandler> handlers = new ArrayList<>();
+                    handlers.add(new MarshallingPayloadMethodProcessor(marshaller, marshaller));
+                    handlers.addAll(adapter.getMethodReturnValueHandlers());
+                    adapter.setMethodReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
     }
 
  
@@ -0,0 +1,132 @@
+package com.example.bmslookup.controller;
+
+import com.example.bmslookup.jdbc.TableVersions;
+import com.example.bmslookup.service.LookupService;
+import com.example.bmslookup.util.TableValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight HTTP/JSON read API over the lookup service.
+ * Serves the same data as the SOAP "l" indicator without the envelope,
+ * and supports conditional GET through strong ETags.
+ *
+ * The ETag is derived from the lookup key, the table's local write version
+ * (TableVersions) and the current app.lookup.etag.max-age-seconds window, so a
+ * matching If-None-Match is answered with 304 before the query runs. Windows
+ * are aligned to the epoch, so nodes that have not written the table agree on
+ * the tag, and writes made on other nodes or directly in Teradata are picked
+ * up within one window. Without JDBC instrumentation there are no versions and
+ * the ETag falls back to a hash of the response body.
+ */
+@RestController
+@RequestMapping("/lookup")
+public class LookupController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LookupController.class);
+
+    @Autowired
+    private LookupService lookupService;
+
+    @Autowired
+    private TableValidator tableValidator;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Value("${app.lookup.etag.max-age-seconds:60}")
+    private long etagMaxAgeSeconds;
+
+    /**
+     * Returns all records of the given list.
+     *
+     * @param listName table alias (e.g. Governorate)
+     * @param webRequest current request, used for If-None-Match handling
+     * @return JSON array, 304 when the client copy is current
+     */
+    @GetMapping(value = "/{listName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> lookupAll(@PathVariable String listName, WebRequest webRequest) {
+        logger.info("REST lookupAll for list: {}", listName);
+        if (!tableValidator.isValidTable(listName)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody("Invalid table name: " + listName));
+        }
+        return conditionalResponse("all|" + listName, listName, () -> lookupService.lookupAll(listName), webRequest);
+    }
+
+    /**
+     * Returns a single record of the given list by id.
+     *
+     * @param listName table alias (e.g. Governorate)
+     * @param id record id
+     * @param webRequest current request, used for If-None-Match handling
+     * @return JSON object, 304 when the client copy is current
+     */
+    @GetMapping(value = "/{listName}/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> lookupById(@PathVariable String listName, @PathVariable String id, WebRequest webRequest) {
+        logger.info("REST lookupById for list: {}, id: {}", listName, id);
+        if (!tableValidator.isValidTable(listName)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody("Invalid table name: " + listName));
+        }
+        return conditionalResponse("id|" + listName + "|" + id, listName,
+                () -> lookupService.lookupById(listName, id), webRequest);
+    }
+
+    /**
+     * Builds the response for a lookup, answering 304 without running the
+     * query when the client's If-None-Match matches the current ETag.
+     */
+    private ResponseEntity<String> conditionalResponse(String key, String listName, Supplier<String> lookup,
+                                                       WebRequest webRequest) {
+        String etag = null;
+        if (tableVersions.isTracking()) {
+            etag = versionEtag(key, tableValidator.resolveTableName(listName));
+            if (webRequest.checkNotModified(etag)) {
+                // Spring has already set the 304 status and ETag header
+                return null;
+            }
+        }
+        String result = lookup.get();
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorBody("No records found"));
+        }
+        if (etag == null) {
+            etag = hash(result);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).body(result);
+    }
+
+    /**
+     * ETag from cheap inputs only: key, table write version and time window.
+     * The version is read before the query, so a write racing with it can only
+     * make the tag older than the body, never newer.
+     */
+    private String versionEtag(String key, String table) {
+        long window = System.currentTimeMillis() / (Math.max(etagMaxAgeSeconds, 1) * 1000);
+        return hash(key + "|" + tableVersions.version(table) + "|" + window);
+    }
+
+    private static String hash(String value) {
+        return "\"" + DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private String errorBody(String message) {
+        return "{\"message\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+}
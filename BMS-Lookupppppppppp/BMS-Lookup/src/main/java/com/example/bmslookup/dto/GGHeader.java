@@ -194,6 +194,20 @@ public class GGHeader {
         return new ValidationResult(200, "Valid header");
     }
 
+    /**
+     * Whether the value is one of the allowed originating channels.
+     */
+    public static boolean isAllowedChannel(String channel) {
+        return channel != null && ALLOWED_CHANNELS.contains(channel);
+    }
+
+    /**
+     * Whether the value is one of the allowed originating user types.
+     */
+    public static boolean isAllowedUserType(String userType) {
+        return userType != null && ALLOWED_USER_TYPES.contains(userType);
+    }
+
     private boolean isEmpty(String value) {
         return value == null || value.trim().isEmpty();
     }
@@ -0,0 +1,78 @@
+package com.example.bmslookup.dto;
+
+import javax.xml.bind.annotation.*;
+
+/**
+ * DTO for a single operation inside a GenericBatchRequest.
+ * Same fields as GenericRequest, without the header (shared by the batch).
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "GenericBatchItem", propOrder = {
+    "id",
+    "indicator",
+    "jsonPayload"
+})
+public class GenericBatchItem {
+
+    @XmlElement(namespace = "http://teradata.com/uhi")
+    private String id;
+
+    @XmlElement(required = true, namespace = "http://teradata.com/uhi")
+    private String indicator;
+
+    @XmlElement(namespace = "http://teradata.com/uhi")
+    private String jsonPayload;
+
+    // Constructors
+    public GenericBatchItem() {}
+
+    public GenericBatchItem(String id, String indicator, String jsonPayload) {
+        this.id = id;
+        this.indicator = indicator;
+        this.jsonPayload = jsonPayload;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getIndicator() {
+        return indicator;
+    }
+
+    public void setIndicator(String indicator) {
+        this.indicator = indicator;
+    }
+
+    public String getJsonPayload() {
+        return jsonPayload;
+    }
+
+    public void setJsonPayload(String jsonPayload) {
+        this.jsonPayload = jsonPayload;
+    }
+
+    /**
+     * Builds the equivalent single request under the batch header.
+     *
+     * @param header shared batch header
+     * @return GenericRequest for this item
+     */
+    public GenericRequest toRequest(GGHeader header) {
+        return new GenericRequest(header, id, indicator, jsonPayload);
+    }
+
+    @Override
+    public String toString() {
+        return "GenericBatchItem{" +
+                "id='" + id + '\'' +
+                ", indicator='" + indicator + '\'' +
+                ", jsonPayload='" + jsonPayload + '\'' +
+                '}';
+    }
+}
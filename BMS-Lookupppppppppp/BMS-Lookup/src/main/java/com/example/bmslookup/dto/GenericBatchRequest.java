@@ -0,0 +1,79 @@
+package com.example.bmslookup.dto;
+
+import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a batch of independent operations sharing one GGHeader.
+ * Items run concurrently unless sequential is true; results keep item order.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "GenericBatchRequest", propOrder = {
+    "GGheader",
+    "sequential",
+    "items"
+})
+@XmlRootElement(name = "GenericBatchRequest", namespace = "http://teradata.com/uhi")
+public class GenericBatchRequest {
+
+    @XmlElement(required = true, namespace = "http://teradata.com/uhi")
+    private GGHeader GGheader;
+
+    @XmlElement(namespace = "http://teradata.com/uhi")
+    private Boolean sequential;
+
+    @XmlElement(name = "item", required = true, namespace = "http://teradata.com/uhi")
+    private List<GenericBatchItem> items = new ArrayList<>();
+
+    // Constructors
+    public GenericBatchRequest() {}
+
+    public GenericBatchRequest(GGHeader GGheader, List<GenericBatchItem> items) {
+        this.GGheader = GGheader;
+        this.items = items;
+    }
+
+    // Getters and Setters
+    public GGHeader getGGheader() {
+        return GGheader;
+    }
+
+    public void setGGheader(GGHeader GGheader) {
+        this.GGheader = GGheader;
+    }
+
+    public Boolean getSequential() {
+        return sequential;
+    }
+
+    public void setSequential(Boolean sequential) {
+        this.sequential = sequential;
+    }
+
+    /**
+     * Whether the items must run one after another (e.g. an update depending on an insert).
+     *
+     * @return true if sequential execution was requested
+     */
+    public boolean isSequential() {
+        return Boolean.TRUE.equals(sequential);
+    }
+
+    public List<GenericBatchItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<GenericBatchItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "GenericBatchRequest{" +
+                "GGheader=" + GGheader +
+                ", sequential=" + sequential +
+                ", items=" + items +
+                '}';
+    }
+}
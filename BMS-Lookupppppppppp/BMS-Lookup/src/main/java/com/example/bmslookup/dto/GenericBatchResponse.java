@@ -0,0 +1,87 @@
+package com.example.bmslookup.dto;
+
+import javax.xml.bind.annotation.*;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the batch response: an overall status and one GenericResponse per item, in item order.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "GenericBatchResponse", propOrder = {
+    "responseCode",
+    "responseMessage",
+    "results",
+    "timestamp"
+})
+@XmlRootElement(name = "GenericBatchResponse", namespace = "http://teradata.com/uhi")
+public class GenericBatchResponse {
+
+    // Returned when some items succeeded and some failed
+    public static final int PARTIAL_SUCCESS = 207;
+
+    @XmlElement(required = true, namespace = "http://teradata.com/uhi")
+    private int responseCode;
+
+    @XmlElement(required = true, namespace = "http://teradata.com/uhi")
+    private String responseMessage;
+
+    @XmlElement(name = "result", namespace = "http://teradata.com/uhi")
+    private List<GenericResponse> results = new ArrayList<>();
+
+    @XmlElement(required = true, namespace = "http://teradata.com/uhi")
+    private XMLGregorianCalendar timestamp;
+
+    // Constructors
+    public GenericBatchResponse() {}
+
+    public GenericBatchResponse(int responseCode, String responseMessage, List<GenericResponse> results) {
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.results = results;
+    }
+
+    // Getters and Setters
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public void setResponseCode(int responseCode) {
+        this.responseCode = responseCode;
+    }
+
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+
+    public void setResponseMessage(String responseMessage) {
+        this.responseMessage = responseMessage;
+    }
+
+    public List<GenericResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<GenericResponse> results) {
+        this.results = results;
+    }
+
+    public XMLGregorianCalendar getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(XMLGregorianCalendar timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "GenericBatchResponse{" +
+                "responseCode=" + responseCode +
+                ", responseMessage='" + responseMessage + '\'' +
+                ", results=" + results +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
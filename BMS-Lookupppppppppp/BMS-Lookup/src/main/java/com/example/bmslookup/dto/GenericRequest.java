@@ -1,5 +1,9 @@
 package com.example.bmslookup.dto;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import javax.xml.bind.annotation.*;
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +30,9 @@ public class GenericRequest {
     private static final int MAX_ID_LENGTH = 50;
     private static final int MAX_JSON_PAYLOAD_LENGTH = 9000000;
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String NO_LIST_NAME = "-";
+
     @XmlElement(required = true, namespace = "http://teradata.com/uhi")
     private GGHeader GGheader;
 
@@ -40,6 +47,10 @@ public class GenericRequest {
     @XmlElement(namespace = "http://teradata.com/uhi")
     private String jsonPayload;
 
+    // listName from jsonPayload, resolved once per request and shared by validation, routing and audit
+    @XmlTransient
+    private String listName;
+
     // Constructors
     public GenericRequest() {}
 
@@ -83,6 +94,7 @@ public class GenericRequest {
 
     public void setJsonPayload(String jsonPayload) {
         this.jsonPayload = jsonPayload;
+        this.listName = null;
     }
 
     /**
@@ -150,6 +162,41 @@ public class GenericRequest {
         return new ValidationResult(200, "Valid request");
     }
 
+    /**
+     * Returns the top-level listName from jsonPayload, or "-" if there is none.
+     * Streams the payload only up to the listName field and caches the result.
+     *
+     * @return list name or "-"
+     */
+    public String getListName() {
+        if (listName == null) {
+            listName = resolveListName(jsonPayload);
+        }
+        return listName;
+    }
+
+    private static String resolveListName(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return NO_LIST_NAME;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return NO_LIST_NAME;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("listName".equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : NO_LIST_NAME;
+                }
+                parser.skipChildren();
+            }
+        } catch (Exception e) {
+            // malformed payload, fallback below
+        }
+        return NO_LIST_NAME;
+    }
+
     /**
      * Checks if a string is null or empty after trimming.
      */
@@ -160,7 +207,7 @@ public class GenericRequest {
     /**
      * Determines the type of operation.
      *
-     * @return Operation type (INSERT, UPDATE, LOOKUP)
+     * @return Operation type (INSERT, UPDATE, LOOKUP, or the beneficiary operation)
      */
     public String getOperationType() {
         if (indicator == null) {
@@ -174,6 +221,13 @@ public class GenericRequest {
                 return "UPDATE";
             case "l":
                 return "LOOKUP";
+            case "insert_beneficiary":
+                return "INSERT_BENEFICIARY";
+            case "update_beneficiary":
+                return "UPDATE_BENEFICIARY";
+            case "split":
+            case "split_beneficiary":
+                return "SPLIT_BENEFICIARY";
             default:
                 return "UNKNOWN";
         }
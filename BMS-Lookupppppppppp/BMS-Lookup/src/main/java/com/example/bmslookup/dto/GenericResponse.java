@@ -11,6 +11,7 @@ import javax.xml.datatype.XMLGregorianCalendar;
     "responseCode",
     "responseMessage",
     "data",
+    "dataAttachment",
     "timestamp"
 })
 @XmlRootElement(name = "GenericResponse", namespace = "http://teradata.com/uhi")
@@ -23,6 +24,7 @@ public class GenericResponse {
     public static final int BAD_REQUEST = 400;
     public static final int NOT_FOUND = 404;
     public static final int INTERNAL_SERVER_ERROR = 500;
+    public static final int SERVICE_UNAVAILABLE = 503;
 
     // Default response messages
     public static final String SUCCESS_MESSAGE = "Operation completed successfully";
@@ -31,6 +33,7 @@ public class GenericResponse {
     public static final String BAD_REQUEST_MESSAGE = "Bad request";
     public static final String NOT_FOUND_MESSAGE = "Record not found";
     public static final String INTERNAL_ERROR_MESSAGE = "Internal server error";
+    public static final String SERVICE_UNAVAILABLE_MESSAGE = "Service busy, retry later";
 
     @XmlElement(required = true, namespace = "http://teradata.com/uhi")
     private int responseCode;
@@ -41,6 +44,11 @@ public class GenericResponse {
     @XmlElement(namespace = "http://teradata.com/uhi")
     private String data;
 
+    // Set only on the wire when MTOM mode moves large data into an XOP attachment
+    @XmlElement(namespace = "http://teradata.com/uhi")
+    @XmlMimeType("application/json")
+    private byte[] dataAttachment;
+
     @XmlElement(required = true, namespace = "http://teradata.com/uhi")
     private XMLGregorianCalendar timestamp;
 
@@ -90,6 +98,14 @@ public class GenericResponse {
         this.data = data;
     }
 
+    public byte[] getDataAttachment() {
+        return dataAttachment;
+    }
+
+    public void setDataAttachment(byte[] dataAttachment) {
+        this.dataAttachment = dataAttachment;
+    }
+
     public XMLGregorianCalendar getTimestamp() {
         return timestamp;
     }
@@ -133,6 +149,8 @@ public class GenericResponse {
                 return "NOT_FOUND";
             case INTERNAL_SERVER_ERROR:
                 return "INTERNAL_SERVER_ERROR";
+            case SERVICE_UNAVAILABLE:
+                return "SERVICE_UNAVAILABLE";
             default:
                 return "UNKNOWN_ERROR";
         }
@@ -194,6 +212,9 @@ public class GenericResponse {
             case INTERNAL_SERVER_ERROR:
                 defaultMessage = INTERNAL_ERROR_MESSAGE;
                 break;
+            case SERVICE_UNAVAILABLE:
+                defaultMessage = SERVICE_UNAVAILABLE_MESSAGE;
+                break;
             default:
                 defaultMessage = "Unknown error";
         }
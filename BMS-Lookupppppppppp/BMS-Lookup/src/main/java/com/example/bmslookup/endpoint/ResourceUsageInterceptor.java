@@ -0,0 +1,98 @@
+package com.example.bmslookup.endpoint;
+
+import com.example.bmslookup.metrics.RequestContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.EndpointInterceptor;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+
+/**
+ * Returns the resources a GenericRequest used as HTTP response headers:
+ *
+ * Server-Timing: db;dur=12.4, pool;dur=0.3, parse;dur=1.1, serialize;dur=0.6, total;dur=18.9
+ * X-Resource-Usage: statements=3, rows-read=41, rows-written=0
+ *
+ * Durations are in milliseconds. parse is the time from the message reaching the
+ * endpoint chain to UHIEndpoint starting (SOAP envelope and JAXB unmarshalling);
+ * serialize is the time from UHIEndpoint returning to the response leaving the
+ * chain (JAXB marshalling and MTOM). Must be registered first so that it sees the
+ * request before, and the response after, every other interceptor.
+ *
+ * Batch requests get no headers; each item's usage is in its audit record.
+ */
+public class ResourceUsageInterceptor implements EndpointInterceptor {
+
+    private static final String RECEIVED_NANOS = ResourceUsageInterceptor.class.getName() + ".receivedNanos";
+    private static final String REQUEST_CONTEXT = ResourceUsageInterceptor.class.getName() + ".requestContext";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String RESOURCE_USAGE_HEADER = "X-Resource-Usage";
+
+    /**
+     * @return System.nanoTime() when the interceptor saw the request, 0 if it is not registered
+     */
+    static long getReceivedNanos(MessageContext messageContext) {
+        Object value = messageContext != null ? messageContext.getProperty(RECEIVED_NANOS) : null;
+        return value instanceof Long ? (Long) value : 0;
+    }
+
+    /**
+     * Hands the finished request's context to the interceptor.
+     */
+    static void setRequestContext(MessageContext messageContext, RequestContext context) {
+        if (messageContext != null && messageContext.containsProperty(RECEIVED_NANOS)) {
+            messageContext.setProperty(REQUEST_CONTEXT, context);
+        }
+    }
+
+    @Override
+    public boolean handleRequest(MessageContext messageContext, Object endpoint) {
+        messageContext.setProperty(RECEIVED_NANOS, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public boolean handleResponse(MessageContext messageContext, Object endpoint) {
+        addHeaders(messageContext);
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(MessageContext messageContext, Object endpoint) {
+        addHeaders(messageContext);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(MessageContext messageContext, Object endpoint, Exception ex) {
+    }
+
+    private void addHeaders(MessageContext messageContext) {
+        Object value = messageContext.getProperty(REQUEST_CONTEXT);
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (!(value instanceof RequestContext) || attributes == null || attributes.getResponse() == null) {
+            return;
+        }
+        RequestContext context = (RequestContext) value;
+        long serializeNanos = context.getEndNanos() > 0 ? System.nanoTime() - context.getEndNanos() : 0;
+        long totalNanos = context.getEndNanos() - context.getStartNanos() + context.getParseNanos() + serializeNanos;
+
+        HttpServletResponse response = attributes.getResponse();
+        response.setHeader(SERVER_TIMING_HEADER,
+                "db;dur=" + millis(context.getDbNanos())
+                        + ", pool;dur=" + millis(context.getConnectionWaitNanos())
+                        + ", parse;dur=" + millis(context.getParseNanos())
+                        + ", serialize;dur=" + millis(serializeNanos)
+                        + ", total;dur=" + millis(totalNanos));
+        response.setHeader(RESOURCE_USAGE_HEADER,
+                "statements=" + context.getStatementCount()
+                        + ", rows-read=" + context.getRowsRead()
+                        + ", rows-written=" + context.getRowsWritten());
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
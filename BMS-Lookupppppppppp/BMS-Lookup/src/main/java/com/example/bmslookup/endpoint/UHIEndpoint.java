@@ -1,31 +1,48 @@
 package com.example.bmslookup.endpoint;
 import com.example.bmslookup.service.NominationService;
 import com.example.bmslookup.audit.AuditLogger;
+import com.example.bmslookup.dto.GenericBatchItem;
+import com.example.bmslookup.dto.GenericBatchRequest;
+import com.example.bmslookup.dto.GenericBatchResponse;
 import com.example.bmslookup.dto.GenericRequest;
 import com.example.bmslookup.dto.GenericResponse;
 import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.metrics.RequestMetrics;
 import com.example.bmslookup.service.LookupService;
+import com.example.bmslookup.throttle.AdmissionController;
+import com.example.bmslookup.throttle.PriorityScheduler;
+import com.example.bmslookup.tracing.Span;
+import com.example.bmslookup.tracing.Tracer;
+import com.example.bmslookup.util.LoopLogger;
 import com.example.bmslookup.util.TableValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.RequestPayload;
 import org.springframework.ws.server.endpoint.annotation.ResponsePayload;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 @Endpoint
 public class UHIEndpoint {
@@ -34,6 +51,9 @@ public class UHIEndpoint {
 
     private static final String NAMESPACE_URI = "http://teradata.com/uhi";
     private static final String LOCAL_PART = "GenericRequest";
+    private static final String BATCH_LOCAL_PART = "GenericBatchRequest";
+    private static final String TRACEPARENT_HEADER = "traceparent";
+    private static final String TRACE_ID_HEADER = "X-Trace-Id";
 
     @Autowired
     private LookupService lookupService;
@@ -58,14 +78,102 @@ public class UHIEndpoint {
     @Autowired
     private com.example.bmslookup.service.split splitService;
 
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private PriorityScheduler priorityScheduler;
+
+    @Autowired
+    @Qualifier("batchExecutor")
+    private AsyncTaskExecutor batchExecutor;
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Value("${app.ws.batch.max-items:50}")
+    private int maxBatchItems;
+
+    @Value("${app.ws.mtom.enabled:false}")
+    private boolean mtomEnabled;
+
+    @Value("${app.ws.mtom.threshold:65536}")
+    private int mtomThreshold;
+
     @PayloadRoot(namespace = NAMESPACE_URI, localPart = LOCAL_PART)
     @ResponsePayload
-    public GenericResponse handleRequest(@RequestPayload GenericRequest request) {
+    public GenericResponse handleRequest(@RequestPayload GenericRequest request, MessageContext messageContext) {
+        GenericResponse response = execute(request, messageContext);
+        if (response.getResponseCode() == GenericResponse.SERVICE_UNAVAILABLE) {
+            setRetryAfterHeader(admissionController.getRetryAfterSeconds());
+        }
+        return response;
+    }
+
+    /**
+     * Runs one request with metrics and tracing. Shared by single requests and
+     * batch items, so it must not touch the HTTP response: batch items run on
+     * worker threads, and response headers are set by the caller on the request thread.
+     *
+     * @param messageContext message context of a single request, null for batch items
+     */
+    private GenericResponse execute(GenericRequest request, MessageContext messageContext) {
+        RequestMetrics.Sample sample = requestMetrics.start(request, ResourceUsageInterceptor.getReceivedNanos(messageContext));
+        // Span names use the normalized indicator so client input cannot create unbounded names
+        Span span = startRequestSpan("GenericRequest " + sample.getContext().getIndicator(), request.getGGheader());
+        if (messageContext != null) {
+            setTraceIdHeader(span);
+        }
+        GenericResponse response = null;
+        try {
+            response = processRequest(request);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            requestMetrics.stop(sample, response);
+            ResourceUsageInterceptor.setRequestContext(messageContext, sample.getContext());
+            if (response != null) {
+                span.tag("responseCode", response.getResponseCode());
+                if (response.getResponseCode() >= GenericResponse.INTERNAL_SERVER_ERROR) {
+                    span.error(null);
+                }
+            }
+            tracer.finish(span);
+        }
+        if (mtomEnabled) {
+            moveDataToAttachment(response);
+        }
+        return response;
+    }
+
+    /**
+     * MTOM mode: large JSON goes into dataAttachment, which the MTOM marshaller
+     * sends as a binary XOP part instead of escaped text. Done after the audit
+     * and metrics, which read data.
+     */
+    private void moveDataToAttachment(GenericResponse response) {
+        if (response.getData() == null || response.getData().length() < mtomThreshold / 4) {
+            return;
+        }
+        byte[] bytes = response.getData().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= mtomThreshold) {
+            response.setDataAttachment(bytes);
+            response.setData(null);
+        }
+    }
+
+    private GenericResponse processRequest(GenericRequest request) {
         long startTime = System.currentTimeMillis();
         String correlationId = request.getGGheader().getCorrelationId();
         
         logger.info("Received new request - CorrelationId: {}", correlationId);
 
+        PriorityScheduler.Permit permit = null;
+        Span handlerSpan = Span.NOOP;
         try {
             GGHeader.ValidationResult headerValidation = request.getGGheader().validate();
             if (!headerValidation.isValid()) {
@@ -79,33 +187,35 @@ public class UHIEndpoint {
                 return errorResponse;
             }
 
+            // Shed low-priority work fast while the connection pool is saturated
+            if (!admissionController.admit(request)) {
+                logger.warn("Connection pool saturated, rejecting low-priority request - indicator: {}, channel: {}",
+                        request.getIndicator(), request.getGGheader().getOriginatingChannel());
+                return createBusyResponse(request, startTime);
+            }
+
+            // Wait for a service-layer slot in weighted-fair order across channels
+            Span schedulerSpan = tracer.startSpan("PriorityScheduler.acquire");
+            try {
+                permit = priorityScheduler.acquire(request);
+            } catch (PriorityScheduler.RejectedException e) {
+                schedulerSpan.error(e);
+                logger.warn("Request rejected by priority scheduler - channel: {}, reason: {}",
+                        request.getGGheader().getOriginatingChannel(), e.getMessage());
+                return createBusyResponse(request, startTime);
+            } finally {
+                tracer.finish(schedulerSpan);
+            }
+            handlerSpan = tracer.startSpan("UHIEndpoint.handle").tag("indicator", request.getIndicator());
+
             // Route to dynamic insert/update
             String indicator = request.getIndicator();
             String jsonPayload = request.getJsonPayload();
-            if ("INSERT_BENEFICIARY".equalsIgnoreCase(indicator)) {
-                try {
-                    insertBeneficiaryService.insertBeneficiaryData(jsonPayload);
-                    return createSuccessResponse("Beneficiary data inserted successfully");
-                } catch (Exception e) {
-                    logger.error("Insert error: ", e);
-                    return createErrorResponse(500, "Insert failed: " + e.getMessage());
-                }
-            } else if ("UPDATE_BENEFICIARY".equalsIgnoreCase(indicator)) {
-                try {
-                    updateBeneficiaryService.updateBeneficiaryData(jsonPayload);
-                    return createSuccessResponse("Beneficiary data updated successfully");
-                } catch (Exception e) {
-                    logger.error("Update error: ", e);
-                    return createErrorResponse(500, "Update failed: " + e.getMessage());
-                }
-            } else if ("SPLIT_BENEFICIARY".equalsIgnoreCase(indicator) || "split".equalsIgnoreCase(indicator)) {
-                try {
-                    splitService.splitBeneficiaryData(jsonPayload);
-                    return createSuccessResponse("Beneficiary split completed successfully");
-                } catch (Exception e) {
-                    logger.error("Split error: ", e);
-                    return createErrorResponse(500, "Split failed: " + e.getMessage());
-                }
+            GenericResponse beneficiaryResponse = handleBeneficiary(indicator, jsonPayload);
+            if (beneficiaryResponse != null) {
+                long processingTime = System.currentTimeMillis() - startTime;
+                auditLogger.logAudit(request, beneficiaryResponse, processingTime, getClientIpAddress());
+                return beneficiaryResponse;
             }
 
             // For insert, HOF, and nomination, tableName is no longer validated here. Table name is extracted from jsonPayload in respective handlers.
@@ -171,7 +281,180 @@ public class UHIEndpoint {
             auditLogger.logAuditError(request, e.getMessage(), processingTime, getClientIpAddress());
             
             return errorResponse;
+        } finally {
+            tracer.finish(handlerSpan);
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Beneficiary operations routed on the indicator alone.
+     *
+     * @return the response, or null if the indicator is not a beneficiary operation
+     */
+    private GenericResponse handleBeneficiary(String indicator, String jsonPayload) {
+        if ("INSERT_BENEFICIARY".equalsIgnoreCase(indicator)) {
+            try {
+                insertBeneficiaryService.insertBeneficiaryData(jsonPayload);
+                return createSuccessResponse("Beneficiary data inserted successfully");
+            } catch (Exception e) {
+                logger.error("Insert error: ", e);
+                return createErrorResponse(500, "Insert failed: " + e.getMessage());
+            }
+        } else if ("UPDATE_BENEFICIARY".equalsIgnoreCase(indicator)) {
+            try {
+                updateBeneficiaryService.updateBeneficiaryData(jsonPayload);
+                return createSuccessResponse("Beneficiary data updated successfully");
+            } catch (Exception e) {
+                logger.error("Update error: ", e);
+                return createErrorResponse(500, "Update failed: " + e.getMessage());
+            }
+        } else if ("SPLIT_BENEFICIARY".equalsIgnoreCase(indicator) || "split".equalsIgnoreCase(indicator)) {
+            try {
+                splitService.splitBeneficiaryData(jsonPayload);
+                return createSuccessResponse("Beneficiary split completed successfully");
+            } catch (Exception e) {
+                logger.error("Split error: ", e);
+                return createErrorResponse(500, "Split failed: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Handle a batch of operations sharing one GGHeader.
+     * Each item goes through execute (validation, admission, scheduling, audit),
+     * independent items run concurrently, and results are returned in item order.
+     */
+    @PayloadRoot(namespace = NAMESPACE_URI, localPart = BATCH_LOCAL_PART)
+    @ResponsePayload
+    public GenericBatchResponse handleBatchRequest(@RequestPayload GenericBatchRequest request) {
+        GGHeader header = request.getGGheader();
+        List<GenericBatchItem> items = request.getItems();
+        int itemCount = items == null ? 0 : items.size();
+
+        logger.info("Received batch request - CorrelationId: {}, items: {}, sequential: {}",
+                header != null ? header.getCorrelationId() : null, itemCount, request.isSequential());
+
+        // Items are traced as children of the batch span
+        Span span = startRequestSpan("GenericBatchRequest", header).tag("items", itemCount);
+        setTraceIdHeader(span);
+        try {
+            GenericBatchResponse response = processBatchRequest(request, header, items, itemCount);
+            // Items never touch the response; one Retry-After covers any shed item
+            for (GenericResponse result : response.getResults()) {
+                if (result.getResponseCode() == GenericResponse.SERVICE_UNAVAILABLE) {
+                    setRetryAfterHeader(admissionController.getRetryAfterSeconds());
+                    break;
+                }
+            }
+            return response;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            tracer.finish(span);
+        }
+    }
+
+    private GenericBatchResponse processBatchRequest(GenericBatchRequest request, GGHeader header,
+                                                     List<GenericBatchItem> items, int itemCount) {
+        if (header == null) {
+            return createBatchResponse(GenericResponse.MISSING_REQUIRED_FIELD, "Missing GGheader", new ArrayList<>());
+        }
+        GGHeader.ValidationResult headerValidation = header.validate();
+        if (!headerValidation.isValid()) {
+            logger.warn("Batch GGHeader validation failed - code: {}, message: {}",
+                    headerValidation.getCode(), headerValidation.getMessage());
+            return createBatchResponse(headerValidation.getCode(), headerValidation.getMessage(), new ArrayList<>());
+        }
+        if (itemCount == 0) {
+            return createBatchResponse(GenericResponse.MISSING_REQUIRED_FIELD, "Batch contains no items", new ArrayList<>());
+        }
+        if (itemCount > maxBatchItems) {
+            return createBatchResponse(GenericResponse.INVALID_VALUE,
+                    "Batch contains " + itemCount + " items, maximum is " + maxBatchItems, new ArrayList<>());
+        }
+
+        List<GenericResponse> results = new ArrayList<>(itemCount);
+        if (request.isSequential()) {
+            for (GenericBatchItem item : items) {
+                results.add(execute(item.toRequest(header), null));
+            }
+        } else {
+            // Worker threads need the caller's request attributes for the client IP (read only),
+            // and the batch span so items join the batch trace
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            Span batchSpan = tracer.current();
+            List<Future<GenericResponse>> futures = new ArrayList<>(itemCount);
+            for (GenericBatchItem item : items) {
+                GenericRequest itemRequest = item.toRequest(header);
+                futures.add(batchExecutor.submit(() -> {
+                    // Restore rather than reset: CallerRunsPolicy may run the item on the request thread
+                    RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+                    RequestContextHolder.setRequestAttributes(requestAttributes);
+                    Span previous = tracer.activate(batchSpan);
+                    try {
+                        return execute(itemRequest, null);
+                    } finally {
+                        tracer.restore(previous);
+                        RequestContextHolder.setRequestAttributes(previousAttributes);
+                    }
+                }));
+            }
+            for (Future<GenericResponse> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(createErrorResponse(500, "Interrupted while waiting for batch item"));
+                } catch (Exception e) {
+                    logger.error("Batch item failed", e);
+                    results.add(createErrorResponse(500, "Internal server error: " + e.getMessage()));
+                }
+            }
+        }
+
+        int succeeded = 0;
+        for (GenericResponse result : results) {
+            if (result.isSuccess()) {
+                succeeded++;
+            }
+        }
+        logger.info("Batch request completed - CorrelationId: {}, succeeded: {}/{}",
+                header.getCorrelationId(), succeeded, itemCount);
+
+        if (succeeded == itemCount) {
+            return createBatchResponse(GenericResponse.SUCCESS, "All " + itemCount + " items processed successfully", results);
         }
+        if (succeeded > 0) {
+            return createBatchResponse(GenericBatchResponse.PARTIAL_SUCCESS,
+                    succeeded + " of " + itemCount + " items processed successfully", results);
+        }
+        // All items failed: report the first item's code as the overall status
+        return createBatchResponse(results.get(0).getResponseCode(), "All " + itemCount + " items failed", results);
+    }
+
+    private GenericBatchResponse createBatchResponse(int code, String message, List<GenericResponse> results) {
+        GenericBatchResponse response = new GenericBatchResponse(code, message, results);
+        response.setTimestamp(getCurrentTimestamp());
+        return response;
+    }
+
+    /**
+     * Fast 503 response for requests shed under load; the caller adds Retry-After
+     */
+    private GenericResponse createBusyResponse(GenericRequest request, long startTime) {
+        int retryAfter = admissionController.getRetryAfterSeconds();
+        GenericResponse busyResponse = createErrorResponse(GenericResponse.SERVICE_UNAVAILABLE,
+                "Service busy, retry after " + retryAfter + " seconds");
+
+        long processingTime = System.currentTimeMillis() - startTime;
+        auditLogger.logAudit(request, busyResponse, processingTime, getClientIpAddress());
+
+        return busyResponse;
     }
 
     private GenericResponse handleInsert(GenericRequest request) {
@@ -370,21 +653,55 @@ public class UHIEndpoint {
     }
 
     /**
-     * Helper to extract table name from jsonPayload (listName) or fallback to '-'.
+     * Starts the request span, continuing the caller's trace from the traceparent
+     * header. The user identifier is left out of the tags.
      */
-    private String extractTableNameFromPayload(GenericRequest request) {
-        String jsonPayload = request.getJsonPayload();
-        if (jsonPayload != null && !jsonPayload.trim().isEmpty()) {
-            try {
-                com.fasterxml.jackson.databind.JsonNode node = new com.fasterxml.jackson.databind.ObjectMapper().readTree(jsonPayload);
-                if (node.has("listName") && node.get("listName").isTextual()) {
-                    return node.get("listName").asText();
-                }
-            } catch (Exception e) {
-                // ignore, fallback below
+    private Span startRequestSpan(String name, GGHeader header) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        String traceparent = attributes != null ? attributes.getRequest().getHeader(TRACEPARENT_HEADER) : null;
+        Span span = tracer.startTrace(name, traceparent);
+        if (!span.isRecording()) {
+            return span;
+        }
+        if (header != null) {
+            span.tag("correlationId", header.getCorrelationId())
+                    .tag("originatingChannel", header.getOriginatingChannel())
+                    .tag("channelRequestId", header.getChannelRequestId())
+                    .tag("originatingUserType", header.getOriginatingUserType())
+                    .tag("serviceSlug", header.getServiceSlug())
+                    .tag("serviceEntityId", header.getServiceEntityId());
+        }
+        return span;
+    }
+
+    /**
+     * Returns the trace id to the caller in X-Trace-Id; request thread only
+     */
+    private void setTraceIdHeader(Span span) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (span.isRecording() && attributes != null && attributes.getResponse() != null) {
+            attributes.getResponse().setHeader(TRACE_ID_HEADER, span.getTraceId());
+        }
+    }
+
+    /**
+     * Set the HTTP Retry-After header on the current response, if any
+     */
+    private void setRetryAfterHeader(int seconds) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader("Retry-After", String.valueOf(seconds));
             }
         }
-        return "-";
+    }
+
+    /**
+     * Helper to extract table name from jsonPayload (listName) or fallback to '-'.
+     */
+    private String extractTableNameFromPayload(GenericRequest request) {
+        return request.getListName();
     }
 
     /**
@@ -422,11 +739,11 @@ public class UHIEndpoint {
         });
         
         String insertQuery = "INSERT INTO " + tableName + " (" + columns.toString() + ") VALUES (" + values.toString() + ")";
-        logger.info("HOF Insert Query: {}", insertQuery);
-        logger.info("HOF Insert Parameters: {}", parameters);
+        logger.debug("HOF Insert Query: {}", insertQuery);
+        logger.debug("HOF Insert Parameters: {}", parameters);
         
         int rowsAffected = jdbcTemplate.update(insertQuery, parameters.toArray());
-        logger.info("HOF insert successful for table {}, rows affected: {}", tableName, rowsAffected);
+        logger.debug("HOF insert successful for table {}, rows affected: {}", tableName, rowsAffected);
         return rowsAffected > 0;
         
     } catch (Exception e) {
@@ -468,11 +785,11 @@ private boolean updateHOFRecord(String tableName, com.fasterxml.jackson.databind
         parameters.add(idValue);
         
         String updateQuery = "UPDATE " + tableName + " SET " + setClause.toString() + " WHERE " + idFieldName + " = ?";
-        logger.info("HOF Update Query: {}", updateQuery);
-        logger.info("HOF Update Parameters: {}", parameters);
+        logger.debug("HOF Update Query: {}", updateQuery);
+        logger.debug("HOF Update Parameters: {}", parameters);
         
         int rowsAffected = jdbcTemplate.update(updateQuery, parameters.toArray());
-        logger.info("HOF update successful for table {}, rows affected: {}", tableName, rowsAffected);
+        logger.debug("HOF update successful for table {}, rows affected: {}", tableName, rowsAffected);
         return rowsAffected > 0;
         
     } catch (Exception e) {
@@ -521,21 +838,21 @@ private String validateHOFBeneficiaryData(com.fasterxml.jackson.databind.node.Ob
         }
 
         String idValue = data.get(idFieldName).asText();
-        logger.info("Upsert check for table {} with id: {}", tableName, idValue);
+        logger.debug("Upsert check for table {} with id: {}", tableName, idValue);
 
         // Existence check
         String existsQuery = "SELECT COUNT(1) FROM " + tableName + " WHERE " + idFieldName + " = ?";
         Integer count = jdbcTemplate.queryForObject(existsQuery, new Object[]{idValue}, Integer.class);
         boolean exists = (count != null && count > 0);
-        logger.info("Record existence for table {} id {}: {}", tableName, idValue, exists);
+        logger.debug("Record existence for table {} id {}: {}", tableName, idValue, exists);
 
         if (exists) {
             // Update existing
-            logger.info("Record exists. Performing UPDATE for table {} id {}", tableName, idValue);
+            logger.debug("Record exists. Performing UPDATE for table {} id {}", tableName, idValue);
             return updateHOFRecord(tableName, data, idValue);
         } else {
             // Insert new
-            logger.info("Record does not exist. Performing INSERT for table {} id {}", tableName, idValue);
+            logger.debug("Record does not exist. Performing INSERT for table {} id {}", tableName, idValue);
             return performInsert(tableName, data);
         }
     } catch (Exception e) {
@@ -595,119 +912,122 @@ private String validateHOFBeneficiaryData(com.fasterxml.jackson.databind.node.Ob
                 return createErrorResponse(400, "Empty hofData array");
             }
             
-            // Process each HOF member
-            for (com.fasterxml.jackson.databind.JsonNode hofMember : hofDataArray) {
-                if (!hofMember.has("id") || hofMember.get("id").asText().trim().isEmpty()) {
-                    return createErrorResponse(400, "Missing id in hofData member");
-                }
+            // Process each HOF member (one summary line per request instead of INFO lines per row)
+            LoopLogger loop = LoopLogger.start(logger, "HOF enrollment");
+            try {
+                for (com.fasterxml.jackson.databind.JsonNode hofMember : hofDataArray) {
+                    if (!hofMember.has("id") || hofMember.get("id").asText().trim().isEmpty()) {
+                        return createErrorResponse(400, "Missing id in hofData member");
+                    }
                 
-                String beneficiaryId = hofMember.get("id").asText();
-                logger.info("Processing HOF member with id: {}", beneficiaryId);
+                    String beneficiaryId = hofMember.get("id").asText();
+                    loop.nextItem();
+                    loop.debug("Processing HOF member with id: {}", beneficiaryId);
                 
-                // Extract beneficiary data (excluding contacts and employments arrays)
-                com.fasterxml.jackson.databind.node.ObjectNode beneficiaryData = mapper.createObjectNode();
-                hofMember.fields().forEachRemaining(entry -> {
-                    String fieldName = entry.getKey();
-                    if (!"contacts".equals(fieldName) && !"employments".equals(fieldName)) {
-                        beneficiaryData.set(fieldName, entry.getValue());
-                    }
-                });
+                    // Extract beneficiary data (excluding contacts and employments arrays)
+                    com.fasterxml.jackson.databind.node.ObjectNode beneficiaryData = mapper.createObjectNode();
+                    hofMember.fields().forEachRemaining(entry -> {
+                        String fieldName = entry.getKey();
+                        if (!"contacts".equals(fieldName) && !"employments".equals(fieldName)) {
+                            beneficiaryData.set(fieldName, entry.getValue());
+                        }
+                    });
                 
-                // Validate HOF beneficiary data with nullable field support
-                String validationError = validateHOFBeneficiaryData(beneficiaryData);
-                if (validationError != null) {
-                    return createErrorResponse(410, "Missing required attributes in HOF enrollment: " + validationError);
-                }
+                    // Validate HOF beneficiary data with nullable field support
+                    String validationError = validateHOFBeneficiaryData(beneficiaryData);
+                    if (validationError != null) {
+                        return createErrorResponse(410, "Missing required attributes in HOF enrollment: " + validationError);
+                    }
                 
-                // Insert beneficiary record using direct HOF insert (bypass LookupService validation)
-                boolean beneficiaryInserted = insertHOFRecord(
-                    "GDEV1T_UHI_DATA.beneficiary",
-                    beneficiaryData,
-                    request.getGGheader().getOriginatingUserIdentifier()
-                );
+                    // Insert beneficiary record using direct HOF insert (bypass LookupService validation)
+                    boolean beneficiaryInserted = insertHOFRecord(
+                        "GDEV1T_UHI_DATA.beneficiary",
+                        beneficiaryData,
+                        request.getGGheader().getOriginatingUserIdentifier()
+                    );
                 
-                if (!beneficiaryInserted) {
-                    return createErrorResponse(500, "Failed to insert beneficiary with id: " + beneficiaryId);
-                }
+                    if (!beneficiaryInserted) {
+                        return createErrorResponse(500, "Failed to insert beneficiary with id: " + beneficiaryId);
+                    }
                 
-                logger.info("Successfully inserted beneficiary: {}", beneficiaryId);
+                    loop.count("beneficiaries");
                 
-                // Process contacts if present
-                if (hofMember.has("contacts") && hofMember.get("contacts").isArray()) {
-                    logger.info("Found 'contacts' array for beneficiary: {}. Processing...", beneficiaryId);
-                    com.fasterxml.jackson.databind.JsonNode contactsArray = hofMember.get("contacts");
-                    for (com.fasterxml.jackson.databind.JsonNode contact : contactsArray) {
-                        com.fasterxml.jackson.databind.node.ObjectNode contactData = mapper.createObjectNode();
+                    // Process contacts if present
+                    if (hofMember.has("contacts") && hofMember.get("contacts").isArray()) {
+                        com.fasterxml.jackson.databind.JsonNode contactsArray = hofMember.get("contacts");
+                        for (com.fasterxml.jackson.databind.JsonNode contact : contactsArray) {
+                            com.fasterxml.jackson.databind.node.ObjectNode contactData = mapper.createObjectNode();
                         
-                        // Set beneficiaryId
-                        contactData.put("beneficiaryId", beneficiaryId);
+                            // Set beneficiaryId
+                            contactData.put("beneficiaryId", beneficiaryId);
                         
-                        // Copy contact fields, ensuring beneficiaryId is not duplicated
-                        contact.fields().forEachRemaining(entry -> {
-                            // Ignore beneficiaryID from payload to prevent duplicate column reference
-                            if (!"beneficiaryID".equalsIgnoreCase(entry.getKey())) {
-                                contactData.set(entry.getKey(), entry.getValue());
-                            }
-                        });
+                            // Copy contact fields, ensuring beneficiaryId is not duplicated
+                            contact.fields().forEachRemaining(entry -> {
+                                // Ignore beneficiaryID from payload to prevent duplicate column reference
+                                if (!"beneficiaryID".equalsIgnoreCase(entry.getKey())) {
+                                    contactData.set(entry.getKey(), entry.getValue());
+                                }
+                            });
                         
-                        // Use insertHOFRecord for consistent upsert logic
-                        boolean contactUpserted = insertHOFRecord(
-                            "GDEV1T_UHI_DATA.contact",
-                            contactData,
-                            request.getGGheader().getOriginatingUserIdentifier()
-                        );
+                            // Use insertHOFRecord for consistent upsert logic
+                            boolean contactUpserted = insertHOFRecord(
+                                "GDEV1T_UHI_DATA.contact",
+                                contactData,
+                                request.getGGheader().getOriginatingUserIdentifier()
+                            );
                         
-                        if (contactUpserted) {
-                            logger.info("Successfully upserted contact for beneficiary: {}", beneficiaryId);
-                        } else {
-                            logger.warn("Failed to upsert contact for beneficiary: {}", beneficiaryId);
+                            if (contactUpserted) {
+                                loop.count("contacts");
+                            } else {
+                                loop.count("contactsFailed");
+                                loop.warn("Failed to upsert contact for beneficiary: {}", beneficiaryId);
+                            }
                         }
                     }
-                } else {
-                    logger.info("No 'contacts' array found for beneficiary: {}. Skipping.", beneficiaryId);
-                }
                 
-                // Process employments if present
-                if (hofMember.has("employments") && hofMember.get("employments").isArray()) {
-                    logger.info("Found 'employments' array for beneficiary: {}. Processing...", beneficiaryId);
-                    com.fasterxml.jackson.databind.JsonNode employmentsArray = hofMember.get("employments");
-                    for (com.fasterxml.jackson.databind.JsonNode employment : employmentsArray) {
-                        com.fasterxml.jackson.databind.node.ObjectNode employmentData = mapper.createObjectNode();
+                    // Process employments if present
+                    if (hofMember.has("employments") && hofMember.get("employments").isArray()) {
+                        com.fasterxml.jackson.databind.JsonNode employmentsArray = hofMember.get("employments");
+                        for (com.fasterxml.jackson.databind.JsonNode employment : employmentsArray) {
+                            com.fasterxml.jackson.databind.node.ObjectNode employmentData = mapper.createObjectNode();
                         
-                        // Set beneficiaryId if not present
-                        if (!employment.has("beneficiaryId")) {
-                            employmentData.put("beneficiaryId", beneficiaryId);
-                        }
+                            // Set beneficiaryId if not present
+                            if (!employment.has("beneficiaryId")) {
+                                employmentData.put("beneficiaryId", beneficiaryId);
+                            }
                         
-                        // Copy employment fields
-                        employment.fields().forEachRemaining(entry -> {
-                            employmentData.set(entry.getKey(), entry.getValue());
-                        });
+                            // Copy employment fields
+                            employment.fields().forEachRemaining(entry -> {
+                                employmentData.set(entry.getKey(), entry.getValue());
+                            });
                         
-                        // Debug: Log employment data before validation
-                        logger.info("Employment data before validation: {}", employmentData.toString());
+                            // Debug: Log employment data before validation (sampled rows only)
+                            loop.debug("Employment data before validation: {}", employmentData);
                         
-                        // Validate HOF employment data with nullable field support
-                        String employmentValidationError = validateHOFEmploymentData(employmentData);
-                        if (employmentValidationError != null) {
-                            logger.warn("HOF employment validation failed: {}", employmentValidationError);
-                            return createErrorResponse(410, "Missing required attributes in HOF enrollment: " + employmentValidationError);
-                        }
+                            // Validate HOF employment data with nullable field support
+                            String employmentValidationError = validateHOFEmploymentData(employmentData);
+                            if (employmentValidationError != null) {
+                                logger.warn("HOF employment validation failed: {}", employmentValidationError);
+                                return createErrorResponse(410, "Missing required attributes in HOF enrollment: " + employmentValidationError);
+                            }
                         
-                        logger.info("HOF employment validation passed, calling HOF insert...");
-                        boolean employmentInserted = insertHOFRecord(
-                            "GDEV1T_UHI_DATA.employment",
-                            employmentData,
-                            request.getGGheader().getOriginatingUserIdentifier()
-                        );
+                            boolean employmentInserted = insertHOFRecord(
+                                "GDEV1T_UHI_DATA.employment",
+                                employmentData,
+                                request.getGGheader().getOriginatingUserIdentifier()
+                            );
                         
-                        if (employmentInserted) {
-                            logger.info("Successfully inserted employment for beneficiary: {}", beneficiaryId);
-                        } else {
-                            logger.warn("Failed to insert employment for beneficiary: {}", beneficiaryId);
+                            if (employmentInserted) {
+                                loop.count("employments");
+                            } else {
+                                loop.count("employmentsFailed");
+                                loop.warn("Failed to insert employment for beneficiary: {}", beneficiaryId);
+                            }
                         }
                     }
                 }
+            } finally {
+                loop.finish();
             }
             
             return createSuccessResponse("HOF enrollment completed successfully");
@@ -0,0 +1,44 @@
+package com.example.bmslookup.jdbc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing who holds pool connections.
+ *
+ * GET /actuator/connectionpool?limit=50
+ *
+ * Returns the pool counters, holders grouped by indicator, the longest-held
+ * connections with their correlationId and last SQL, and connections held
+ * past the leak-detection threshold.
+ */
+@Component
+@Endpoint(id = "connectionpool")
+public class ConnectionPoolEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private ConnectionPoolMonitor connectionPoolMonitor;
+
+    @Autowired
+    private ConnectionTracker connectionTracker;
+
+    @ReadOperation
+    public Map<String, Object> holders(@Nullable Integer limit) {
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pool", connectionPoolMonitor.poolSnapshot());
+        result.put("byIndicator", connectionTracker.describeByIndicator());
+        result.put("holders", connectionTracker.describeHolders(max));
+        result.put("suspectedLeaks", connectionTracker.describeSuspectedLeaks());
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bmslookup.jdbc;
+
+import com.example.bmslookup.config.JdbcConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodic connection pool report.
+ * Runs JdbcConfig.monitorConnectionPool on a schedule and, when threads are
+ * waiting for a connection or connections are held past the leak threshold,
+ * logs which indicators hold the pool.
+ */
+@Component
+public class ConnectionPoolMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolMonitor.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcConfig jdbcConfig;
+
+    @Autowired
+    private ConnectionTracker connectionTracker;
+
+    @Value("${app.jdbc.pool.monitor-enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(fixedDelayString = "${app.jdbc.pool.monitor-interval-ms:60000}")
+    public void monitor() {
+        if (!enabled) {
+            return;
+        }
+        jdbcConfig.monitorConnectionPool(dataSource);
+
+        HikariPoolMXBean pool = poolMXBean();
+        int awaiting = pool != null ? pool.getThreadsAwaitingConnection() : 0;
+        List<Map<String, Object>> leaks = connectionTracker.describeSuspectedLeaks();
+        if (awaiting > 0 || !leaks.isEmpty()) {
+            logger.warn("Connection pool under pressure - awaiting: {}, holders by indicator: {}, suspected leaks: {}",
+                    awaiting, connectionTracker.describeByIndicator(), leaks);
+        }
+    }
+
+    /**
+     * Current pool counters, empty if the DataSource is not backed by Hikari.
+     */
+    public Map<String, Object> poolSnapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        HikariPoolMXBean pool = poolMXBean();
+        if (pool != null) {
+            result.put("active", pool.getActiveConnections());
+            result.put("idle", pool.getIdleConnections());
+            result.put("total", pool.getTotalConnections());
+            result.put("awaiting", pool.getThreadsAwaitingConnection());
+        }
+        result.put("tracked", connectionTracker.getHeldCount());
+        return result;
+    }
+
+    private HikariPoolMXBean poolMXBean() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            logger.debug("Unable to unwrap HikariDataSource", e);
+        }
+        return null;
+    }
+}
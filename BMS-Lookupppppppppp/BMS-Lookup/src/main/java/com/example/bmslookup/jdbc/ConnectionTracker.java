@@ -0,0 +1,178 @@
+package com.example.bmslookup.jdbc;
+
+import com.example.bmslookup.metrics.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records who holds each checked-out pool connection.
+ * InstrumentedDataSource registers a holder on checkout with the indicator,
+ * correlationId and channel of the current request, the thread and the last
+ * statement run, and removes it when the connection is closed. When the pool
+ * runs dry the holders show which operations keep connections and for how long.
+ */
+@Component
+public class ConnectionTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionTracker.class);
+
+    @Value("${spring.datasource.hikari.leak-detection-threshold:60000}")
+    private long leakThresholdMs;
+
+    private final ConcurrentMap<Long, Holder> holders = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Registers a connection checked out by the current thread.
+     *
+     * @param acquireNanos time spent waiting for the pool
+     * @return holder, to be passed to {@link #released}
+     */
+    public Holder acquired(long acquireNanos) {
+        Holder holder = new Holder(sequence.incrementAndGet(), RequestContext.current(), acquireNanos);
+        holders.put(holder.id, holder);
+        return holder;
+    }
+
+    /**
+     * Removes a holder when its connection goes back to the pool.
+     * Connections held longer than the leak threshold are logged with their owner.
+     */
+    public void released(Holder holder) {
+        if (holders.remove(holder.id) == null) {
+            return;
+        }
+        long heldMs = holder.heldMillis();
+        if (leakThresholdMs > 0 && heldMs >= leakThresholdMs) {
+            logger.warn("Connection held for {}ms - indicator: {}, correlationId: {}, thread: {}, last SQL: {}",
+                    heldMs, holder.indicator, holder.correlationId, holder.thread, holder.lastSql);
+        }
+    }
+
+    /**
+     * @return number of connections currently checked out through the DataSource
+     */
+    public int getHeldCount() {
+        return holders.size();
+    }
+
+    /**
+     * Current holders, longest-held first.
+     *
+     * @param limit maximum number of holders
+     * @return holder descriptions
+     */
+    public List<Map<String, Object>> describeHolders(int limit) {
+        List<Holder> sorted = sortedHolders();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Holder holder : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            result.add(holder.describe());
+        }
+        return result;
+    }
+
+    /**
+     * Current holders grouped by indicator: connection count and longest hold.
+     */
+    public Map<String, Map<String, Object>> describeByIndicator() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (Holder holder : sortedHolders()) {
+            Map<String, Object> group = result.computeIfAbsent(holder.indicator, k -> {
+                Map<String, Object> g = new LinkedHashMap<>();
+                g.put("connections", 0);
+                g.put("maxHeldMs", holder.heldMillis());
+                g.put("totalHeldMs", 0L);
+                return g;
+            });
+            group.put("connections", (Integer) group.get("connections") + 1);
+            group.put("totalHeldMs", (Long) group.get("totalHeldMs") + holder.heldMillis());
+        }
+        return result;
+    }
+
+    /**
+     * Holders over the leak threshold that have not been returned yet.
+     */
+    public List<Map<String, Object>> describeSuspectedLeaks() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (leakThresholdMs <= 0) {
+            return result;
+        }
+        for (Holder holder : sortedHolders()) {
+            if (holder.heldMillis() < leakThresholdMs) {
+                break;
+            }
+            result.add(holder.describe());
+        }
+        return result;
+    }
+
+    private List<Holder> sortedHolders() {
+        List<Holder> sorted = new ArrayList<>(holders.values());
+        sorted.sort(Comparator.comparingLong((Holder h) -> h.acquiredNanos));
+        return sorted;
+    }
+
+    /**
+     * One checked-out connection.
+     */
+    public static final class Holder {
+        private final long id;
+        private final String indicator;
+        private final String correlationId;
+        private final String channel;
+        private final String thread;
+        private final long acquiredAtMillis = System.currentTimeMillis();
+        private final long acquiredNanos = System.nanoTime();
+        private final long acquireWaitNanos;
+        private volatile String lastSql = "-";
+        private volatile int statements;
+
+        private Holder(long id, RequestContext context, long acquireWaitNanos) {
+            this.id = id;
+            this.indicator = context != null ? context.getIndicator() : "-";
+            this.correlationId = context != null && context.getCorrelationId() != null ? context.getCorrelationId() : "-";
+            this.channel = context != null ? context.getChannel() : "-";
+            this.thread = Thread.currentThread().getName();
+            this.acquireWaitNanos = acquireWaitNanos;
+        }
+
+        /**
+         * Notes a statement executed on the connection; called by the owning thread only.
+         */
+        void statementExecuted(SqlShape shape) {
+            lastSql = shape.getSql();
+            statements++;
+        }
+
+        private long heldMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquiredNanos);
+        }
+
+        private Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("indicator", indicator);
+            result.put("correlationId", correlationId);
+            result.put("channel", channel);
+            result.put("thread", thread);
+            result.put("acquiredAt", acquiredAtMillis);
+            result.put("heldMs", heldMillis());
+            result.put("acquireWaitMs", TimeUnit.NANOSECONDS.toMillis(acquireWaitNanos));
+            result.put("statements", statements);
+            result.put("lastSql", lastSql);
+            return result;
+        }
+    }
+}
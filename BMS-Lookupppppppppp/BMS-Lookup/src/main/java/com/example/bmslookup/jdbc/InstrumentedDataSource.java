@@ -0,0 +1,387 @@
+package com.example.bmslookup.jdbc;
+
+import com.example.bmslookup.jfr.FlightEvents;
+import com.example.bmslookup.metrics.RequestContext;
+import com.example.bmslookup.tracing.Span;
+import com.example.bmslookup.tracing.Tracer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * DataSource wrapper that times every JDBC statement by SQL shape.
+ * Connections, statements and result sets are wrapped in dynamic proxies that
+ * record execution time, update counts, fetched rows and the pool acquire time
+ * of the connection into {@link StatementMetrics}, and attribute rows to the
+ * current {@link RequestContext}. Checked-out connections are registered with
+ * {@link ConnectionTracker} until they are closed, and checkouts and statements
+ * are appended to the request's timeline for the slow-request log. With a
+ * {@link QueryBand}, connections checked out by a request carry its query band.
+ * Statements run inside a trace get a leaf span from
+ * the {@link Tracer}, and a JFR event while a flight recording is running.
+ * Writes bump the written table's {@link TableVersions} entry, once when they
+ * run and once when their connection is released.
+ *
+ * unwrap/isWrapperFor delegate to the pool, so callers that need the
+ * HikariDataSource (pool MXBean, Boot's pool metrics) still reach it.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Object NOT_HANDLED = new Object();
+
+    private final StatementMetrics statementMetrics;
+    private final ConnectionTracker connectionTracker;
+    private final QueryBand queryBand;
+    private final Tracer tracer;
+    private final TableVersions tableVersions;
+
+    /**
+     * @param queryBand per-request query band, or null if the database has none
+     */
+    public InstrumentedDataSource(DataSource targetDataSource, StatementMetrics statementMetrics,
+                                  ConnectionTracker connectionTracker, QueryBand queryBand, Tracer tracer,
+                                  TableVersions tableVersions) {
+        super(targetDataSource);
+        this.statementMetrics = statementMetrics;
+        this.connectionTracker = connectionTracker;
+        this.queryBand = queryBand;
+        this.tracer = tracer;
+        this.tableVersions = tableVersions;
+        tableVersions.setTracking(true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        return wrap(connection, start, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return wrap(connection, start, System.nanoTime() - start);
+    }
+
+    /**
+     * Closes the underlying pool, so the bean's inferred destroy method still shuts Hikari down.
+     */
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable) {
+            ((Closeable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection, long startNanos, long acquireNanos) {
+        RequestContext.addConnectionAcquire(startNanos, acquireNanos);
+        ConnectionHandler handler = new ConnectionHandler(connection, acquireNanos);
+        handler.proxy = (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        return handler.proxy;
+    }
+
+    /**
+     * Handles the methods every proxy answers itself; returns NOT_HANDLED otherwise.
+     */
+    private static Object invokeCommon(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                return invoke(target, method, args);
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invoke(target, method, args);
+            default:
+                return NOT_HANDLED;
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final ConnectionTracker.Holder holder;
+        private long acquireNanos;
+        private Connection proxy;
+        private Set<String> writtenTables;
+
+        private ConnectionHandler(Connection target, long acquireNanos) {
+            this.target = target;
+            this.acquireNanos = acquireNanos;
+            this.holder = connectionTracker.acquired(acquireNanos);
+            if (queryBand != null) {
+                queryBand.apply(target, RequestContext.current());
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != NOT_HANDLED) {
+                return common;
+            }
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return wrapStatement(result, PreparedStatement.class, SqlShape.of((String) args[0]));
+                case "prepareCall":
+                    return wrapStatement(result, CallableStatement.class, SqlShape.of((String) args[0]));
+                case "createStatement":
+                    return wrapStatement(result, Statement.class, null);
+                case "close":
+                    connectionTracker.released(holder);
+                    if (writtenTables != null) {
+                        // Bump again once the write is committed and visible to readers
+                        writtenTables.forEach(tableVersions::written);
+                        writtenTables = null;
+                    }
+                    return result;
+                default:
+                    return result;
+            }
+        }
+
+        private Object wrapStatement(Object statement, Class<?> type, SqlShape shape) {
+            return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler((Statement) statement, this, shape));
+        }
+
+        private void written(SqlShape shape) {
+            tableVersions.written(shape.getTable());
+            if (writtenTables == null) {
+                writtenTables = new HashSet<>();
+            }
+            writtenTables.add(shape.getTable());
+        }
+
+        /**
+         * Attributes the pool acquire time to the first statement run on this connection.
+         */
+        private void consumeAcquire(SqlShape shape) {
+            if (acquireNanos >= 0) {
+                statementMetrics.recordAcquire(shape, acquireNanos);
+                acquireNanos = -1;
+            }
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final ConnectionHandler connection;
+        private final SqlShape preparedShape;
+        private SqlShape batchShape;
+        private SqlShape resultShape;
+        private RequestContext.TimelineEntry resultEntry;
+        private ResultSetHandler openResultSet;
+
+        private StatementHandler(Statement target, ConnectionHandler connection, SqlShape preparedShape) {
+            this.target = target;
+            this.connection = connection;
+            this.preparedShape = preparedShape;
+            this.resultShape = preparedShape;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != NOT_HANDLED) {
+                return common;
+            }
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(proxy, method, args, name);
+                case "addBatch":
+                    // Plain statement batches are reported under the shape of their first SQL
+                    if (preparedShape == null && batchShape == null && args != null && args.length == 1) {
+                        batchShape = SqlShape.of((String) args[0]);
+                    }
+                    return InstrumentedDataSource.invoke(target, method, args);
+                case "getResultSet":
+                    return wrapResultSet(proxy, InstrumentedDataSource.invoke(target, method, args));
+                case "getConnection":
+                    return connection.proxy;
+                case "close":
+                    closeResultSet();
+                    return InstrumentedDataSource.invoke(target, method, args);
+                default:
+                    return InstrumentedDataSource.invoke(target, method, args);
+            }
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args, String name) throws Throwable {
+            SqlShape shape = preparedShape;
+            if (shape == null && args != null && args.length > 0 && args[0] instanceof String) {
+                shape = SqlShape.of((String) args[0]);
+            } else if (shape == null) {
+                shape = batchShape != null ? batchShape : SqlShape.of("BATCH");
+                batchShape = null;
+            }
+            closeResultSet();
+            resultShape = shape;
+            resultEntry = null;
+            connection.consumeAcquire(shape);
+            connection.holder.statementExecuted(shape);
+
+            Span span = tracer.startSpan("jdbc " + shape.getOperation());
+            Object flightEvent = FlightEvents.beginStatement();
+            long start = System.nanoTime();
+            Object result = null;
+            boolean failed = true;
+            try {
+                result = InstrumentedDataSource.invoke(target, method, args);
+                failed = false;
+                if (isWrite(shape.getOperation())) {
+                    connection.written(shape);
+                }
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                long rows = updateCount(result);
+                statementMetrics.recordExecution(shape, nanos, rows, failed);
+                FlightEvents.commitStatement(flightEvent, shape.getSql(), shape.getOperation(), shape.getTable(),
+                        rows, failed);
+                RequestContext.addRowsWritten(rows);
+                resultEntry = RequestContext.addStatement(shape.getSql(), start, nanos, rows, failed);
+                if (span.isRecording()) {
+                    span.tag("db.statement", shape.getSql()).tag("db.table", shape.getTable()).tag("db.rows", rows);
+                    tracer.finish(span);
+                }
+            }
+            return "executeQuery".equals(name) ? wrapResultSet(proxy, result) : result;
+        }
+
+        private Object wrapResultSet(Object statementProxy, Object resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            closeResultSet();
+            openResultSet = new ResultSetHandler((ResultSet) resultSet, statementProxy,
+                    resultShape != null ? resultShape : SqlShape.of("OTHER"), resultEntry);
+            return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, openResultSet);
+        }
+
+        private void closeResultSet() {
+            if (openResultSet != null) {
+                openResultSet.flush();
+                openResultSet = null;
+            }
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Object statementProxy;
+        private final SqlShape shape;
+        private final RequestContext.TimelineEntry entry;
+        private long rows;
+        private boolean flushed;
+
+        private ResultSetHandler(ResultSet target, Object statementProxy, SqlShape shape,
+                                 RequestContext.TimelineEntry entry) {
+            this.target = target;
+            this.statementProxy = statementProxy;
+            this.shape = shape;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object common = invokeCommon(proxy, target, method, args);
+            if (common != NOT_HANDLED) {
+                return common;
+            }
+            switch (method.getName()) {
+                case "next":
+                    Object hasRow = InstrumentedDataSource.invoke(target, method, args);
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        rows++;
+                    }
+                    return hasRow;
+                case "getStatement":
+                    return statementProxy;
+                case "close":
+                    flush();
+                    return InstrumentedDataSource.invoke(target, method, args);
+                default:
+                    return InstrumentedDataSource.invoke(target, method, args);
+            }
+        }
+
+        /**
+         * Records the rows read so far; called once, on close of the result set or its statement.
+         */
+        private void flush() {
+            if (!flushed) {
+                flushed = true;
+                statementMetrics.recordFetched(shape, rows);
+                RequestContext.addRowsRead(rows);
+                if (entry != null) {
+                    entry.addRows(rows);
+                }
+            }
+        }
+    }
+
+    private static boolean isWrite(String operation) {
+        return "INSERT".equals(operation) || "UPDATE".equals(operation)
+                || "DELETE".equals(operation) || "MERGE".equals(operation);
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Integer) {
+            return Math.max((Integer) result, 0);
+        }
+        if (result instanceof Long) {
+            return Math.max((Long) result, 0);
+        }
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+}
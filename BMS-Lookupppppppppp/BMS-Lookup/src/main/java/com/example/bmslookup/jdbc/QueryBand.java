@@ -0,0 +1,112 @@
+package com.example.bmslookup.jdbc;
+
+import com.example.bmslookup.metrics.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Teradata session query band carrying the request that uses a connection.
+ * InstrumentedDataSource applies it when a connection is checked out, so DBQL
+ * rows can be joined to a correlationId, indicator and channel; background
+ * work (audit sink) gets the service's base band back.
+ *
+ * The band last set on each physical connection is remembered and the SET is
+ * only sent when it changes: no reset on release, and a request checking the
+ * same connection out several times (one per JdbcTemplate call outside a
+ * transaction) pays for one round-trip, not two per checkout.
+ *
+ * Values come from client input and are reduced to characters that cannot
+ * break out of the band string.
+ */
+@Component
+public class QueryBand {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBand.class);
+
+    private static final int MAX_VALUE_LENGTH = 64;
+
+    @Value("${app.jdbc.query-band.base:ApplicationName=BMS_LOOKUP_SERVICE;}")
+    private String baseBand;
+
+    private volatile boolean failureLogged;
+
+    // Physical connection -> band its session carries; weak so evicted connections drop out
+    private final Map<Connection, String> sessionBands = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Gives a connection just checked out the request's band, or the base band
+     * outside a request, unless its session already carries it.
+     *
+     * @param connection pooled connection (not the instrumented proxy, so the SET is not timed)
+     * @param context    current request, or null outside a request
+     */
+    void apply(Connection connection, RequestContext context) {
+        Connection session = physical(connection);
+        String current = sessionBands.get(session);
+        String band = context != null ? bandFor(context) : baseBand;
+        // A session we never banded has no request band to clear
+        if (band.equals(current) || (context == null && current == null)) {
+            return;
+        }
+        if (execute(connection, band)) {
+            sessionBands.put(session, band);
+        } else {
+            sessionBands.remove(session);
+        }
+    }
+
+    /**
+     * The pool hands out a new wrapper per checkout; the band belongs to the session underneath.
+     */
+    private static Connection physical(Connection connection) {
+        try {
+            return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+        } catch (SQLException e) {
+            return connection;
+        }
+    }
+
+    private String bandFor(RequestContext context) {
+        return baseBand
+                + "CorrelationId=" + sanitize(context.getCorrelationId()) + ';'
+                + "Indicator=" + sanitize(context.getIndicator()) + ';'
+                + "Channel=" + sanitize(context.getChannel()) + ';';
+    }
+
+    private boolean execute(Connection connection, String band) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET QUERY_BAND = '" + band + "' FOR SESSION");
+            return true;
+        } catch (SQLException e) {
+            // A missing band only costs DBQL attribution; never fail the request for it
+            if (!failureLogged) {
+                failureLogged = true;
+                logger.warn("Could not set query band, further failures are logged at debug: {}", e.getMessage());
+            } else {
+                logger.debug("Could not set query band: {}", e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private static String sanitize(String value) {
+        if (value == null || value.isEmpty()) {
+            return "-";
+        }
+        StringBuilder out = new StringBuilder(Math.min(value.length(), MAX_VALUE_LENGTH));
+        for (int i = 0; i < value.length() && out.length() < MAX_VALUE_LENGTH; i++) {
+            char c = value.charAt(i);
+            out.append((c < 128 && Character.isLetterOrDigit(c)) || c == '-' || c == '_' || c == '.' || c == ':' ? c : '_');
+        }
+        return out.toString();
+    }
+}
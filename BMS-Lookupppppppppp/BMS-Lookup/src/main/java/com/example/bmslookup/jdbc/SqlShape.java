@@ -0,0 +1,175 @@
+package com.example.bmslookup.jdbc;
+
+import java.util.Locale;
+
+/**
+ * SQL text normalized to its shape: string and numeric literals become '?',
+ * runs of whitespace collapse to one space and lists of placeholders such as
+ * IN (?, ?, ?) collapse to (?). Statements that differ only in their literal
+ * values therefore share one shape, one id and one set of statistics.
+ */
+public final class SqlShape {
+
+    private final String sql;
+    private final String id;
+    private final String operation;
+    private final String table;
+
+    private SqlShape(String sql) {
+        this.sql = sql;
+        this.id = String.format("%08x", sql.hashCode());
+        this.operation = firstKeyword(sql);
+        this.table = targetTable(sql, operation);
+    }
+
+    /**
+     * Normalizes raw SQL to its shape.
+     *
+     * @param rawSql SQL as sent to the driver
+     * @return shape
+     */
+    public static SqlShape of(String rawSql) {
+        return new SqlShape(normalize(rawSql));
+    }
+
+    static String normalize(String rawSql) {
+        if (rawSql == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(rawSql.length());
+        int length = rawSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = rawSql.charAt(i);
+            if (c == '\'') {
+                // String literal, '' is an escaped quote
+                i++;
+                while (i < length) {
+                    if (rawSql.charAt(i) == '\'') {
+                        if (i + 1 < length && rawSql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                appendPlaceholder(out);
+            } else if (Character.isDigit(c) && !isIdentifierPart(lastChar(out))) {
+                while (i < length && (Character.isDigit(rawSql.charAt(i)) || rawSql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendPlaceholder(out);
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(rawSql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+            } else if (c == '?') {
+                appendPlaceholder(out);
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /**
+     * Appends '?', folding "?, ?" sequences into the previous placeholder.
+     */
+    private static void appendPlaceholder(StringBuilder out) {
+        int end = out.length();
+        int j = end - 1;
+        while (j >= 0 && out.charAt(j) == ' ') {
+            j--;
+        }
+        if (j >= 0 && out.charAt(j) == ',') {
+            int k = j - 1;
+            while (k >= 0 && out.charAt(k) == ' ') {
+                k--;
+            }
+            if (k >= 0 && out.charAt(k) == '?') {
+                out.setLength(k + 1);
+                return;
+            }
+        }
+        out.append('?');
+    }
+
+    private static char lastChar(StringBuilder out) {
+        return out.length() == 0 ? ' ' : out.charAt(out.length() - 1);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private static String firstKeyword(String sql) {
+        int end = 0;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "OTHER" : sql.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Table following FROM / INTO / UPDATE, or "-" if none is found.
+     */
+    private static String targetTable(String sql, String operation) {
+        String keyword;
+        switch (operation) {
+            case "INSERT":
+            case "MERGE":
+                keyword = " INTO ";
+                break;
+            case "UPDATE":
+                keyword = "UPDATE ";
+                break;
+            default:
+                keyword = " FROM ";
+        }
+        String upper = sql.toUpperCase(Locale.ROOT);
+        int index = upper.indexOf(keyword);
+        if (index < 0) {
+            return "-";
+        }
+        int start = index + keyword.length();
+        int end = start;
+        while (end < sql.length() && (isIdentifierPart(sql.charAt(end)) || sql.charAt(end) == '.')) {
+            end++;
+        }
+        return end > start ? sql.substring(start, end) : "-";
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return short stable id of the shape, used as the metric tag
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return leading SQL keyword, e.g. SELECT, INSERT
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
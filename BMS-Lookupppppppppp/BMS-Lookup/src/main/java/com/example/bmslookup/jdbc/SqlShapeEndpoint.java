@@ -0,0 +1,41 @@
+package com.example.bmslookup.jdbc;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the slowest SQL shapes.
+ *
+ * GET /actuator/sqlshapes?limit=20&amp;orderBy=mean
+ * DELETE /actuator/sqlshapes - clear the statistics
+ *
+ * orderBy is one of total (default), mean, max, count, acquire.
+ */
+@Component
+@Endpoint(id = "sqlshapes")
+public class SqlShapeEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private StatementMetrics statementMetrics;
+
+    @ReadOperation
+    public List<Map<String, Object>> top(@Nullable Integer limit, @Nullable String orderBy) {
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        return statementMetrics.top(max, orderBy);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statementMetrics.reset();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.bmslookup.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-SQL-shape statement statistics.
+ * Keeps in-memory totals for the slow-shape report and publishes a timer
+ * (bms.jdbc.statements) and row counters tagged by shape id, operation and
+ * table. The number of distinct shapes is capped; statements beyond the cap
+ * are accounted under a single overflow shape.
+ */
+@Component
+public class StatementMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementMetrics.class);
+
+    private static final String STATEMENT_TIMER = "bms.jdbc.statements";
+    private static final String ROWS_AFFECTED = "bms.jdbc.rows.affected";
+    private static final String ROWS_FETCHED = "bms.jdbc.rows.fetched";
+    private static final String ERRORS = "bms.jdbc.errors";
+    private static final SqlShape OVERFLOW = SqlShape.of("OTHER");
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${app.jdbc.instrumentation.max-shapes:200}")
+    private int maxShapes;
+
+    @Value("${app.jdbc.instrumentation.percentile-histogram:true}")
+    private boolean percentileHistogram;
+
+    private final ConcurrentMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    /**
+     * Records one executed statement.
+     *
+     * @param shape        statement shape
+     * @param elapsedNanos execution time
+     * @param rowsAffected update count, 0 for queries
+     * @param failed       whether the statement threw
+     */
+    public void recordExecution(SqlShape shape, long elapsedNanos, long rowsAffected, boolean failed) {
+        ShapeStats stats = stats(shape);
+        stats.executions.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        stats.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rowsAffected > 0) {
+            stats.rowsAffected.add(rowsAffected);
+            stats.rowsAffectedCounter().increment(rowsAffected);
+        }
+        if (failed) {
+            stats.errors.increment();
+            stats.errorCounter().increment();
+        }
+    }
+
+    /**
+     * Records rows read from a result set of the shape.
+     */
+    public void recordFetched(SqlShape shape, long rows) {
+        if (rows <= 0) {
+            return;
+        }
+        ShapeStats stats = stats(shape);
+        stats.rowsFetched.add(rows);
+        stats.rowsFetchedCounter().increment(rows);
+    }
+
+    /**
+     * Records the pool acquire time of the connection on which the shape
+     * was the first statement executed.
+     */
+    public void recordAcquire(SqlShape shape, long acquireNanos) {
+        ShapeStats stats = stats(shape);
+        stats.acquires.increment();
+        stats.acquireNanos.add(acquireNanos);
+        stats.maxAcquireNanos.accumulateAndGet(acquireNanos, Math::max);
+    }
+
+    /**
+     * Top shapes for the slow-shape report.
+     *
+     * @param limit   maximum number of shapes
+     * @param orderBy "total" (default), "mean", "max", "count" or "acquire"
+     * @return shape statistics, slowest first
+     */
+    public List<Map<String, Object>> top(int limit, String orderBy) {
+        Comparator<ShapeStats> comparator;
+        switch (orderBy == null ? "total" : orderBy) {
+            case "mean":
+                comparator = Comparator.comparingDouble(ShapeStats::meanNanos);
+                break;
+            case "max":
+                comparator = Comparator.comparingLong(s -> s.maxNanos.get());
+                break;
+            case "count":
+                comparator = Comparator.comparingLong(s -> s.executions.sum());
+                break;
+            case "acquire":
+                comparator = Comparator.comparingLong(s -> s.acquireNanos.sum());
+                break;
+            case "total":
+                comparator = Comparator.comparingLong(s -> s.totalNanos.sum());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown orderBy: " + orderBy);
+        }
+        List<ShapeStats> sorted = new ArrayList<>(shapes.values());
+        sorted.sort(comparator.reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ShapeStats stats : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            result.add(stats.describe());
+        }
+        return result;
+    }
+
+    /**
+     * Clears the in-memory statistics and removes the shapes' meters, so the
+     * published series never outnumber max-shapes across resets.
+     */
+    public void reset() {
+        Iterator<ShapeStats> iterator = shapes.values().iterator();
+        while (iterator.hasNext()) {
+            ShapeStats stats = iterator.next();
+            iterator.remove();
+            stats.removeMeters();
+        }
+    }
+
+    private ShapeStats stats(SqlShape shape) {
+        ShapeStats stats = shapes.get(shape.getId());
+        if (stats != null) {
+            return stats;
+        }
+        if (shapes.size() >= maxShapes) {
+            if (!shapes.containsKey(OVERFLOW.getId())) {
+                logger.warn("SQL shape limit of {} reached, further shapes are reported as '{}'",
+                        maxShapes, OVERFLOW.getSql());
+            }
+            shape = OVERFLOW;
+        }
+        SqlShape target = shape;
+        return shapes.computeIfAbsent(target.getId(), id -> new ShapeStats(target));
+    }
+
+    private MeterRegistry registry() {
+        // Resolved lazily: the registry's binders depend on the DataSource this class instruments
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+
+    /**
+     * Accumulated statistics for one shape.
+     */
+    private final class ShapeStats {
+        private final SqlShape shape;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rowsAffected = new LongAdder();
+        private final LongAdder rowsFetched = new LongAdder();
+        private final LongAdder acquires = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final AtomicLong maxAcquireNanos = new AtomicLong();
+        private volatile Timer timer;
+        private volatile Counter rowsAffectedCounter;
+        private volatile Counter rowsFetchedCounter;
+        private volatile Counter errorCounter;
+
+        private ShapeStats(SqlShape shape) {
+            this.shape = shape;
+        }
+
+        private Tags tags() {
+            return Tags.of("shape", shape.getId(), "operation", shape.getOperation(), "table", shape.getTable());
+        }
+
+        private Timer timer() {
+            Timer t = timer;
+            if (t == null) {
+                Timer.Builder builder = Timer.builder(STATEMENT_TIMER)
+                        .description("JDBC statement execution time per SQL shape")
+                        .tags(tags());
+                if (percentileHistogram) {
+                    builder.publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofMillis(1))
+                            .maximumExpectedValue(Duration.ofSeconds(60));
+                }
+                t = builder.register(registry());
+                timer = t;
+            }
+            return t;
+        }
+
+        private Counter rowsAffectedCounter() {
+            Counter c = rowsAffectedCounter;
+            if (c == null) {
+                c = Counter.builder(ROWS_AFFECTED).tags(tags()).register(registry());
+                rowsAffectedCounter = c;
+            }
+            return c;
+        }
+
+        private Counter rowsFetchedCounter() {
+            Counter c = rowsFetchedCounter;
+            if (c == null) {
+                c = Counter.builder(ROWS_FETCHED).tags(tags()).register(registry());
+                rowsFetchedCounter = c;
+            }
+            return c;
+        }
+
+        private Counter errorCounter() {
+            Counter c = errorCounter;
+            if (c == null) {
+                c = Counter.builder(ERRORS).tags(tags()).register(registry());
+                errorCounter = c;
+            }
+            return c;
+        }
+
+        /**
+         * A statement still in flight may re-register a meter; the next stats for
+         * the same shape then reuse it, since meters are identified by their tags.
+         */
+        private void removeMeters() {
+            MeterRegistry registry = registry();
+            for (Meter meter : new Meter[]{timer, rowsAffectedCounter, rowsFetchedCounter, errorCounter}) {
+                if (meter != null) {
+                    registry.remove(meter);
+                }
+            }
+        }
+
+        private double meanNanos() {
+            long count = executions.sum();
+            return count == 0 ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        private Map<String, Object> describe() {
+            long count = executions.sum();
+            long acquireCount = acquires.sum();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", shape.getId());
+            result.put("sql", shape.getSql());
+            result.put("operation", shape.getOperation());
+            result.put("table", shape.getTable());
+            result.put("executions", count);
+            result.put("errors", errors.sum());
+            result.put("totalMs", toMillis(totalNanos.sum()));
+            result.put("meanMs", toMillis(meanNanos()));
+            result.put("maxMs", toMillis(maxNanos.get()));
+            result.put("rowsAffected", rowsAffected.sum());
+            result.put("rowsFetched", rowsFetched.sum());
+            result.put("acquireMeanMs", acquireCount == 0 ? 0.0 : toMillis((double) acquireNanos.sum() / acquireCount));
+            result.put("acquireMaxMs", toMillis(maxAcquireNanos.get()));
+            return result;
+        }
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bmslookup.jdbc;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local write version per table, so a lookup's ETag can be computed before its query runs.
+ *
+ * InstrumentedDataSource bumps a table's version for every INSERT, UPDATE,
+ * DELETE or MERGE on it, and again when the connection that ran the statement
+ * is released (after commit), so a reader can never pair the old version with
+ * data it read before the write committed.
+ *
+ * Only writes made through this node's pool are seen; callers must bound the
+ * validity of a version for writes made elsewhere. Tracking is off when JDBC
+ * instrumentation is disabled.
+ */
+@Component
+public class TableVersions {
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile boolean tracking;
+
+    /**
+     * @return true if writes are being counted (the instrumented DataSource is in use)
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    void setTracking(boolean tracking) {
+        this.tracking = tracking;
+    }
+
+    /**
+     * @param table table name, with or without database prefix
+     * @return current write version, 0 if never written
+     */
+    public long version(String table) {
+        AtomicLong version = versions.get(key(table));
+        return version != null ? version.get() : 0;
+    }
+
+    void written(String table) {
+        versions.computeIfAbsent(key(table), k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Unqualified, upper-case name; statements may or may not carry the database prefix.
+     */
+    private static String key(String table) {
+        String name = table == null ? "-" : table.replace("\"", "");
+        int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(dot + 1) : name).toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bmslookup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One group flush of the audit writer (text file and audit store).
+ */
+@Name("com.example.bmslookup.AuditFlush")
+@Label("Audit Flush")
+@Description("Group flush of audit.log and the audit store by the audit writer thread")
+@Category({"BMS Lookup", "Audit"})
+@StackTrace(false)
+final class AuditFlushEvent extends jdk.jfr.Event {
+
+    @Label("Records")
+    long records;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Fsync")
+    boolean fsync;
+}
@@ -0,0 +1,33 @@
+package com.example.bmslookup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A lookup served from (hit) or loaded into (miss) a cache.
+ */
+@Name("com.example.bmslookup.CacheLookup")
+@Label("Cache Lookup")
+@Description("Hit or miss of a lookup cache; for lookup coalescing a hit joined an in-flight query")
+@Category({"BMS Lookup", "Cache"})
+@StackTrace(false)
+final class CacheLookupEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Hit")
+    boolean hit;
+
+    @Label("Indicator")
+    String indicator;
+
+    @Label("Table")
+    String table;
+
+    @Label("Correlation Id")
+    String correlationId;
+}
@@ -0,0 +1,162 @@
+package com.example.bmslookup.jfr;
+
+import com.example.bmslookup.metrics.RequestContext;
+
+/**
+ * Entry point for the service's JDK Flight Recorder events.
+ *
+ * Event classes are only touched when jdk.jfr is present (JDK 11+, 8u262+), so
+ * the service still runs on older Java 8 builds. With no recording active the
+ * begin methods return null after a single enabled check and the commit
+ * methods return immediately, so instrumented paths pay almost nothing.
+ * Indicator, table and correlationId are taken from the current RequestContext.
+ */
+public final class FlightEvents {
+
+    private static final boolean AVAILABLE = detect();
+
+    private FlightEvents() {
+    }
+
+    /**
+     * @return true if this JVM supports Flight Recorder
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Starts timing a SOAP request.
+     *
+     * @return event to pass to {@link #commitRequest}, or null when not recording
+     */
+    public static Object beginRequest() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        SoapRequestEvent event = new SoapRequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static void commitRequest(Object started, RequestContext context, int responseCode) {
+        if (started == null) {
+            return;
+        }
+        SoapRequestEvent event = (SoapRequestEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.indicator = context.getIndicator();
+            event.table = context.getTable();
+            event.correlationId = context.getCorrelationId();
+            event.channel = context.getChannel();
+            event.responseCode = responseCode;
+            event.rowsRead = context.getRowsRead();
+            event.rowsWritten = context.getRowsWritten();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a JDBC statement.
+     *
+     * @return event to pass to {@link #commitStatement}, or null when not recording
+     */
+    public static Object beginStatement() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        JdbcStatementEvent event = new JdbcStatementEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static void commitStatement(Object started, String sql, String operation, String table,
+                                       long rows, boolean failed) {
+        if (started == null) {
+            return;
+        }
+        JdbcStatementEvent event = (JdbcStatementEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.operation = operation;
+            event.table = table;
+            event.rows = rows;
+            event.failed = failed;
+            RequestContext context = RequestContext.current();
+            if (context != null) {
+                event.indicator = context.getIndicator();
+                event.correlationId = context.getCorrelationId();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a cache hit or miss as an instant event.
+     */
+    public static void cacheLookup(String cache, boolean hit) {
+        if (!AVAILABLE) {
+            return;
+        }
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.hit = hit;
+            RequestContext context = RequestContext.current();
+            if (context != null) {
+                event.indicator = context.getIndicator();
+                event.table = context.getTable();
+                event.correlationId = context.getCorrelationId();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing an audit flush.
+     *
+     * @return event to pass to {@link #commitAuditFlush}, or null when not recording
+     */
+    public static Object beginAuditFlush() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        AuditFlushEvent event = new AuditFlushEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static void commitAuditFlush(Object started, long records, long bytes, boolean fsync) {
+        if (started == null) {
+            return;
+        }
+        AuditFlushEvent event = (AuditFlushEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.records = records;
+            event.bytes = bytes;
+            event.fsync = fsync;
+            event.commit();
+        }
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return jdk.jfr.FlightRecorder.isAvailable();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
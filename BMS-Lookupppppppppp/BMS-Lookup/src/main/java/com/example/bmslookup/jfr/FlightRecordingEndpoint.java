@@ -0,0 +1,162 @@
+package com.example.bmslookup.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.server.ConditionalOnManagementPort;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Actuator endpoint taking a time-boxed JDK Flight Recording.
+ *
+ * GET /actuator/flightrecording - whether JFR is available and a recording is running
+ * POST /actuator/flightrecording {"token": "...", "durationSeconds": 30, "settings": "profile"}
+ *      - records for the given time and returns the .jfr file
+ *
+ * Only registered when actuator runs on its own management port
+ * (management.server.port, normally bound to 127.0.0.1), never on the
+ * application port, and the POST must carry app.jfr.token; with no token
+ * configured recordings are refused. The events that capture environment
+ * variables, system properties and JVM arguments are switched off, so the
+ * file does not carry credentials passed that way.
+ *
+ * settings is a JDK configuration: default (about 1% overhead) or profile (more
+ * detail, about 2%). The service's own events (SOAP request, JDBC statement,
+ * cache lookup, audit flush) are enabled in both. Only one recording runs at a
+ * time; the call blocks for the duration.
+ *
+ * curl -X POST -H 'Content-Type: application/json' -d '{"token":"...","durationSeconds":60}' \
+ *      -o incident.jfr http://127.0.0.1:8081/actuator/flightrecording
+ */
+@Component
+@ConditionalOnManagementPort(ManagementPortType.DIFFERENT)
+@WebEndpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingEndpoint.class);
+
+    private static final String DEFAULT_SETTINGS = "default";
+    private static final String PROFILE_SETTINGS = "profile";
+    private static final int STATUS_FORBIDDEN = 403;
+
+    // Events whose payload may hold credentials (-Dspring.datasource.password=..., DB_PASSWORD=...)
+    private static final String[] SENSITIVE_EVENTS = {
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation"
+    };
+
+    @Value("${app.jfr.default-duration-seconds:30}")
+    private int defaultDurationSeconds;
+
+    @Value("${app.jfr.max-duration-seconds:300}")
+    private int maxDurationSeconds;
+
+    @Value("${app.jfr.max-size-mb:200}")
+    private long maxSizeMb;
+
+    @Value("${app.jfr.token:}")
+    private String token;
+
+    // Start time of the running recording, 0 when idle
+    private final AtomicLong recordingSince = new AtomicLong();
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("available", FlightEvents.isAvailable());
+        long since = recordingSince.get();
+        result.put("recording", since != 0);
+        if (since != 0) {
+            result.put("recordingSince", since);
+        }
+        result.put("maxDurationSeconds", maxDurationSeconds);
+        return result;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Resource> record(@Nullable String token, @Nullable Integer durationSeconds,
+                                                @Nullable String settings) {
+        if (!isAuthorized(token)) {
+            logger.warn("Rejected flight recording request without a valid token");
+            return new WebEndpointResponse<>(STATUS_FORBIDDEN);
+        }
+        if (!FlightEvents.isAvailable()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+        int seconds = durationSeconds == null || durationSeconds <= 0 ? defaultDurationSeconds : durationSeconds;
+        String configurationName = settings == null || settings.isEmpty() ? DEFAULT_SETTINGS : settings;
+        if (seconds > maxDurationSeconds
+                || !(DEFAULT_SETTINGS.equals(configurationName) || PROFILE_SETTINGS.equals(configurationName))) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!recordingSince.compareAndSet(0, System.currentTimeMillis())) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("bms-lookup-", ".jfr");
+            logger.info("Starting flight recording - duration: {}s, settings: {}", seconds, configurationName);
+            Map<String, String> recordingSettings =
+                    new HashMap<>(Configuration.getConfiguration(configurationName).getSettings());
+            for (String event : SENSITIVE_EVENTS) {
+                recordingSettings.put(event + "#enabled", "false");
+            }
+            try (Recording recording = new Recording(recordingSettings)) {
+                recording.setName("bms-lookup-" + recordingSince.get());
+                recording.setToDisk(true);
+                recording.setMaxSize(maxSizeMb * 1024 * 1024);
+                recording.start();
+                try {
+                    TimeUnit.SECONDS.sleep(seconds);
+                } finally {
+                    recording.stop();
+                    recording.dump(file);
+                }
+            }
+            byte[] data = Files.readAllBytes(file);
+            logger.info("Flight recording finished - {} bytes", data.length);
+            return new WebEndpointResponse<>(new ByteArrayResource(data), WebEndpointResponse.STATUS_OK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        } catch (Exception e) {
+            logger.error("Flight recording failed", e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        } finally {
+            recordingSince.set(0);
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (Exception e) {
+                    logger.warn("Could not delete recording file {}", file);
+                }
+            }
+        }
+    }
+
+    private boolean isAuthorized(String presented) {
+        if (token == null || token.isEmpty() || presented == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
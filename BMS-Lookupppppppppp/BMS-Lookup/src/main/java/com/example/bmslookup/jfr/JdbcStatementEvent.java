@@ -0,0 +1,39 @@
+package com.example.bmslookup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One JDBC statement execution through InstrumentedDataSource.
+ */
+@Name("com.example.bmslookup.JdbcStatement")
+@Label("JDBC Statement")
+@Description("Statement executed through InstrumentedDataSource, by SQL shape")
+@Category({"BMS Lookup", "JDBC"})
+@StackTrace(false)
+final class JdbcStatementEvent extends jdk.jfr.Event {
+
+    @Label("SQL Shape")
+    String sql;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Table")
+    String table;
+
+    @Label("Rows Affected")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Indicator")
+    String indicator;
+
+    @Label("Correlation Id")
+    String correlationId;
+}
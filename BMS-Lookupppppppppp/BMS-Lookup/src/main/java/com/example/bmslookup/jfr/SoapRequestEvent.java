@@ -0,0 +1,39 @@
+package com.example.bmslookup.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One SOAP GenericRequest, from RequestMetrics.start to stop.
+ */
+@Name("com.example.bmslookup.SoapRequest")
+@Label("SOAP Request")
+@Description("GenericRequest handled by UHIEndpoint")
+@Category({"BMS Lookup", "SOAP"})
+@StackTrace(false)
+final class SoapRequestEvent extends jdk.jfr.Event {
+
+    @Label("Indicator")
+    String indicator;
+
+    @Label("Table")
+    String table;
+
+    @Label("Correlation Id")
+    String correlationId;
+
+    @Label("Channel")
+    String channel;
+
+    @Label("Response Code")
+    int responseCode;
+
+    @Label("Rows Read")
+    long rowsRead;
+
+    @Label("Rows Written")
+    long rowsWritten;
+}
@@ -0,0 +1,268 @@
+package com.example.bmslookup.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-request state bound to the thread handling a SOAP request.
+ * Holds the request's identity (correlationId, indicator, channel, resolved
+ * table) and the resource counters collected below the endpoint, so that the
+ * JDBC layer can attribute work to the request without passing it through
+ * every service method. It also keeps the request's statement timeline
+ * (connection checkouts and statements, in order) for the slow-request log,
+ * and the resource totals (statements, DB time, pool wait, unmarshalling time)
+ * returned to the caller and written to the audit record.
+ *
+ * Bound by RequestMetrics for the duration of UHIEndpoint.handleRequest;
+ * not shared between threads.
+ */
+public final class RequestContext {
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Timeline entries kept per request; later statements are only counted.
+     */
+    static final int MAX_TIMELINE_ENTRIES = 200;
+
+    private final String correlationId;
+    private final String indicator;
+    private final String channel;
+    private final String table;
+    private final long startNanos = System.nanoTime();
+    private long endNanos;
+    private long parseNanos;
+    private int statements;
+    private long dbNanos;
+    private long connectionWaitNanos;
+    private long rowsRead;
+    private long rowsWritten;
+    private List<TimelineEntry> timeline;
+    private int droppedTimelineEntries;
+
+    RequestContext(String correlationId, String indicator, String channel, String table) {
+        this.correlationId = correlationId;
+        this.indicator = indicator;
+        this.channel = channel;
+        this.table = table;
+    }
+
+    /**
+     * @return context of the request running on this thread, or null outside a request
+     */
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    static RequestContext bind(RequestContext context) {
+        RequestContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return previous;
+    }
+
+    static void restore(RequestContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Adds rows returned by a query to the current request, if any.
+     */
+    public static void addRowsRead(long rows) {
+        RequestContext context = CURRENT.get();
+        if (context != null && rows > 0) {
+            context.rowsRead += rows;
+        }
+    }
+
+    /**
+     * Adds rows affected by an update to the current request, if any.
+     */
+    public static void addRowsWritten(long rows) {
+        RequestContext context = CURRENT.get();
+        if (context != null && rows > 0) {
+            context.rowsWritten += rows;
+        }
+    }
+
+    /**
+     * Appends a statement to the current request's timeline, if any.
+     *
+     * @param sql            statement shape
+     * @param startNanos     System.nanoTime() when the statement started
+     * @param durationNanos  execution time
+     * @param rows           update count; rows fetched later are added to the returned entry
+     * @param failed         whether the statement threw
+     * @return the entry, or null outside a request or when the timeline is full
+     */
+    public static TimelineEntry addStatement(String sql, long startNanos, long durationNanos, long rows, boolean failed) {
+        RequestContext context = CURRENT.get();
+        if (context == null) {
+            return null;
+        }
+        // Totals count every statement, including those past the timeline limit
+        context.statements++;
+        context.dbNanos += durationNanos;
+        return context.append(new TimelineEntry(sql, startNanos, durationNanos, rows, failed));
+    }
+
+    /**
+     * Appends a pool checkout to the current request's timeline, if any.
+     *
+     * @param startNanos  System.nanoTime() when the checkout started
+     * @param waitNanos   time spent waiting for the pool
+     */
+    public static void addConnectionAcquire(long startNanos, long waitNanos) {
+        RequestContext context = CURRENT.get();
+        if (context != null) {
+            context.connectionWaitNanos += waitNanos;
+            context.append(new TimelineEntry(null, startNanos, waitNanos, 0, false));
+        }
+    }
+
+    /**
+     * Records the time between the SOAP message arriving and this request starting.
+     *
+     * @param receivedNanos System.nanoTime() when the message was received, 0 if unknown
+     */
+    void setReceivedNanos(long receivedNanos) {
+        parseNanos = receivedNanos > 0 && receivedNanos < startNanos ? startNanos - receivedNanos : 0;
+    }
+
+    void finish(long endNanos) {
+        this.endNanos = endNanos;
+    }
+
+    private TimelineEntry append(TimelineEntry entry) {
+        if (timeline == null) {
+            timeline = new ArrayList<>();
+        }
+        if (timeline.size() >= MAX_TIMELINE_ENTRIES) {
+            droppedTimelineEntries++;
+            return null;
+        }
+        timeline.add(entry);
+        return entry;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public String getIndicator() {
+        return indicator;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * @return System.nanoTime() when the endpoint returned, 0 while running
+     */
+    public long getEndNanos() {
+        return endNanos;
+    }
+
+    /**
+     * @return time spent reading and unmarshalling the SOAP request, 0 if not measured
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public int getStatementCount() {
+        return statements;
+    }
+
+    /**
+     * @return total execution time of the request's statements
+     */
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    /**
+     * @return total time spent waiting for pool connections
+     */
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public List<TimelineEntry> getTimeline() {
+        return timeline != null ? timeline : Collections.<TimelineEntry>emptyList();
+    }
+
+    public int getDroppedTimelineEntries() {
+        return droppedTimelineEntries;
+    }
+
+    /**
+     * One connection checkout or statement of a request.
+     */
+    public static final class TimelineEntry {
+        private final String sql;
+        private final long startNanos;
+        private final long durationNanos;
+        private final boolean failed;
+        private long rows;
+
+        private TimelineEntry(String sql, long startNanos, long durationNanos, long rows, boolean failed) {
+            this.sql = sql;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.rows = rows;
+            this.failed = failed;
+        }
+
+        /**
+         * Adds rows fetched from the statement's result set.
+         */
+        public void addRows(long fetched) {
+            rows += fetched;
+        }
+
+        /**
+         * @return statement shape, or null for a connection checkout
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
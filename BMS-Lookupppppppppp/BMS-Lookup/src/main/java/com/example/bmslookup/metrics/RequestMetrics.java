@@ -0,0 +1,226 @@
+package com.example.bmslookup.metrics;
+
+import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.dto.GenericRequest;
+import com.example.bmslookup.dto.GenericResponse;
+import com.example.bmslookup.jfr.FlightEvents;
+import com.example.bmslookup.util.TableValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer metrics for SOAP requests.
+ * Records a latency timer with a percentile histogram tagged by indicator,
+ * resolved table, channel and response code, counters for rows read and
+ * written, and in-flight gauges per indicator.
+ *
+ * Tag values come from client input, so they are reduced to bounded sets
+ * (known indicators, whitelisted tables and channels) to keep series
+ * cardinality under control.
+ *
+ * Requests slower than app.metrics.slow-request-threshold-ms are logged with
+ * their full statement timeline (pool checkouts and statements with offset,
+ * duration and rows), so a slow request can be matched to the statements
+ * behind it and, through the query band, to Teradata DBQL.
+ * Each finished request is also checked against its StatementBudget.
+ */
+@Component
+public class RequestMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetrics.class);
+
+    private static final String REQUEST_TIMER = "bms.requests";
+    private static final String ROWS_READ = "bms.rows.read";
+    private static final String ROWS_WRITTEN = "bms.rows.written";
+    private static final String IN_FLIGHT = "bms.requests.in.flight";
+    private static final String NONE = "-";
+    private static final String OTHER = "other";
+
+    private static final Set<String> KNOWN_INDICATORS = new HashSet<>(Arrays.asList(
+            "i", "u", "l", "hof", "nomination", "split",
+            "insert_beneficiary", "update_beneficiary", "split_beneficiary"));
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TableValidator tableValidator;
+
+    @Autowired
+    private StatementBudget statementBudget;
+
+    @Value("${app.metrics.requests.max-expected-ms:30000}")
+    private long maxExpectedMs;
+
+    @Value("${app.metrics.slow-request-threshold-ms:5000}")
+    private long slowRequestThresholdMs;
+
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Binds a RequestContext to the current thread and counts the request as in flight.
+     *
+     * @param request       incoming request
+     * @param receivedNanos System.nanoTime() when the SOAP message was received, 0 if unknown
+     * @return sample to pass to {@link #stop}
+     */
+    public Sample start(GenericRequest request, long receivedNanos) {
+        GGHeader header = request.getGGheader();
+        String channel = header != null && GGHeader.isAllowedChannel(header.getOriginatingChannel())
+                ? header.getOriginatingChannel() : NONE;
+        RequestContext context = new RequestContext(
+                header != null ? header.getCorrelationId() : null,
+                indicatorTag(request.getIndicator()),
+                channel,
+                tableTag(request.getListName()));
+        context.setReceivedNanos(receivedNanos);
+
+        AtomicInteger gauge = inFlight.computeIfAbsent(context.getIndicator(), this::registerInFlightGauge);
+        gauge.incrementAndGet();
+        return new Sample(context, RequestContext.bind(context), gauge, FlightEvents.beginRequest());
+    }
+
+    /**
+     * Records the request and unbinds its context.
+     *
+     * @param sample   sample from {@link #start}
+     * @param response response sent to the client, null if none was produced
+     */
+    public void stop(Sample sample, GenericResponse response) {
+        RequestContext context = sample.context;
+        try {
+            long end = System.nanoTime();
+            context.finish(end);
+            long elapsed = end - context.getStartNanos();
+            int responseCode = response != null ? response.getResponseCode() : GenericResponse.INTERNAL_SERVER_ERROR;
+            String code = String.valueOf(responseCode);
+            FlightEvents.commitRequest(sample.flightEvent, context, responseCode);
+
+            Timer.builder(REQUEST_TIMER)
+                    .description("SOAP request processing time")
+                    .tags(Tags.of(
+                            "indicator", context.getIndicator(),
+                            "table", context.getTable(),
+                            "channel", context.getChannel(),
+                            "code", code))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMillis(maxExpectedMs))
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            Tags rowTags = Tags.of("indicator", context.getIndicator(), "table", context.getTable());
+            if (context.getRowsRead() > 0) {
+                Counter.builder(ROWS_READ)
+                        .description("Rows returned by queries")
+                        .tags(rowTags)
+                        .register(meterRegistry)
+                        .increment(context.getRowsRead());
+            }
+            if (context.getRowsWritten() > 0) {
+                Counter.builder(ROWS_WRITTEN)
+                        .description("Rows inserted or updated")
+                        .tags(rowTags)
+                        .register(meterRegistry)
+                        .increment(context.getRowsWritten());
+            }
+
+            statementBudget.check(context);
+            if (slowRequestThresholdMs > 0 && elapsed >= TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMs)) {
+                logSlowRequest(context, elapsed, code);
+            }
+        } finally {
+            sample.inFlight.decrementAndGet();
+            RequestContext.restore(sample.previous);
+        }
+    }
+
+    private void logSlowRequest(RequestContext context, long elapsedNanos, String code) {
+        StringBuilder timeline = new StringBuilder();
+        for (RequestContext.TimelineEntry entry : context.getTimeline()) {
+            timeline.append("\n  +").append(millis(entry.getStartNanos() - context.getStartNanos())).append("ms ");
+            if (entry.getSql() == null) {
+                timeline.append("connection acquired, waited ").append(millis(entry.getDurationNanos())).append("ms");
+                continue;
+            }
+            timeline.append(millis(entry.getDurationNanos())).append("ms rows=").append(entry.getRows())
+                    .append(entry.isFailed() ? " FAILED " : " ").append(entry.getSql());
+        }
+        if (context.getDroppedTimelineEntries() > 0) {
+            timeline.append("\n  ... ").append(context.getDroppedTimelineEntries()).append(" more not recorded");
+        }
+        logger.warn("Slow request {}ms - indicator: {}, correlationId: {}, channel: {}, table: {}, code: {}, "
+                        + "statements: {}, db time: {}ms, pool wait: {}ms, rows read: {}, rows written: {}{}",
+                millis(elapsedNanos), context.getIndicator(), context.getCorrelationId(), context.getChannel(),
+                context.getTable(), code, context.getStatementCount(), millis(context.getDbNanos()),
+                millis(context.getConnectionWaitNanos()), context.getRowsRead(),
+                context.getRowsWritten(), timeline);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    private AtomicInteger registerInFlightGauge(String indicator) {
+        AtomicInteger value = new AtomicInteger();
+        Gauge.builder(IN_FLIGHT, value, AtomicInteger::get)
+                .description("SOAP requests currently being processed")
+                .tag("indicator", indicator)
+                .register(meterRegistry);
+        return value;
+    }
+
+    private String indicatorTag(String indicator) {
+        if (indicator == null || indicator.trim().isEmpty()) {
+            return NONE;
+        }
+        String normalized = indicator.trim().toLowerCase(Locale.ROOT);
+        return KNOWN_INDICATORS.contains(normalized) ? normalized : OTHER;
+    }
+
+    private String tableTag(String listName) {
+        // Only mapped aliases resolve, so unknown names never become a tag value
+        String resolved = tableValidator.resolveTableName(listName);
+        return resolved != null ? resolved : NONE;
+    }
+
+    /**
+     * In-progress request measurement.
+     */
+    public static final class Sample {
+        private final RequestContext context;
+        private final RequestContext previous;
+        private final AtomicInteger inFlight;
+        // JFR request event, null when no recording is running
+        private final Object flightEvent;
+
+        private Sample(RequestContext context, RequestContext previous, AtomicInteger inFlight, Object flightEvent) {
+            this.context = context;
+            this.previous = previous;
+            this.inFlight = inFlight;
+            this.flightEvent = flightEvent;
+        }
+
+        public RequestContext getContext() {
+            return context;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.bmslookup.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-request JDBC statement budget, to catch N+1 regressions.
+ *
+ * Budgets are set per normalized indicator (see RequestMetrics), e.g.
+ * app.metrics.statement-budget.limits=hof:20,insert_beneficiary:10; indicators
+ * without an entry use app.metrics.statement-budget.default (0 = no budget).
+ *
+ * A request over its budget increments bms.statement.budget.exceeded and is
+ * logged at WARN with the statement it repeated most, at most once per indicator
+ * per log interval. Exceeded budgets are also kept per indicator, so the load
+ * test can fail the run when a change adds statements.
+ */
+@Component
+public class StatementBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementBudget.class);
+
+    private static final String EXCEEDED = "bms.statement.budget.exceeded";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.metrics.statement-budget.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.metrics.statement-budget.limits:}")
+    private String limits;
+
+    @Value("${app.metrics.statement-budget.default:0}")
+    private int defaultBudget;
+
+    @Value("${app.metrics.statement-budget.log-interval-ms:60000}")
+    private long logIntervalMs;
+
+    private Map<String, Integer> budgets;
+    private final ConcurrentMap<String, Violation> violations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        budgets = parse(limits);
+        logger.info("Statement budget enabled={}, budgets={}, default={}", enabled, budgets, defaultBudget);
+    }
+
+    /**
+     * Checks a finished request against its indicator's budget.
+     *
+     * @param context context of the request, after it has finished
+     */
+    void check(RequestContext context) {
+        if (!enabled) {
+            return;
+        }
+        String indicator = context.getIndicator();
+        int budget = budgetFor(indicator);
+        int statements = context.getStatementCount();
+        if (budget <= 0 || statements <= budget) {
+            return;
+        }
+        Counter.builder(EXCEEDED)
+                .description("Requests that ran more JDBC statements than their budget")
+                .tag("indicator", indicator)
+                .register(meterRegistry)
+                .increment();
+
+        Violation violation = violations.computeIfAbsent(indicator, k -> new Violation(k, budget));
+        long suppressed = violation.record(statements, System.currentTimeMillis(), logIntervalMs);
+        if (suppressed >= 0) {
+            logger.warn("Statement budget exceeded - indicator: {}, statements: {}, budget: {}, correlationId: {}, "
+                            + "most repeated: {}{}",
+                    indicator, statements, budget, context.getCorrelationId(), mostRepeated(context),
+                    suppressed > 0 ? " (" + suppressed + " more since last warning)" : "");
+        }
+    }
+
+    /**
+     * @return budget for the indicator, 0 if none
+     */
+    public int budgetFor(String indicator) {
+        Integer budget = budgets.get(indicator);
+        return budget != null ? budget : defaultBudget;
+    }
+
+    /**
+     * @return indicators that exceeded their budget since startup
+     */
+    public Collection<Violation> getViolations() {
+        return violations.values();
+    }
+
+    /**
+     * The statement shape run most often in the request, e.g. "9x SELECT ...".
+     */
+    private static String mostRepeated(RequestContext context) {
+        Map<String, Integer> counts = new HashMap<>();
+        String top = null;
+        int topCount = 0;
+        for (RequestContext.TimelineEntry entry : context.getTimeline()) {
+            if (entry.getSql() == null) {
+                continue;
+            }
+            int count = counts.merge(entry.getSql(), 1, Integer::sum);
+            if (count > topCount) {
+                top = entry.getSql();
+                topCount = count;
+            }
+        }
+        return top != null ? topCount + "x " + top : "-";
+    }
+
+    private static Map<String, Integer> parse(String spec) {
+        Map<String, Integer> values = new HashMap<>();
+        if (spec == null) {
+            return values;
+        }
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            try {
+                values.put(entry.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        Integer.parseInt(entry.substring(colon + 1).trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid statement budget: {}", entry);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Requests of one indicator that exceeded the budget.
+     */
+    public static final class Violation {
+        private final String indicator;
+        private final int budget;
+        private long count;
+        private int maxStatements;
+        private long lastLoggedAt;
+        private long suppressed;
+
+        private Violation(String indicator, int budget) {
+            this.indicator = indicator;
+            this.budget = budget;
+        }
+
+        /**
+         * @return requests not logged since the last warning, or -1 if this one should not be logged either
+         */
+        private synchronized long record(int statements, long now, long logIntervalMs) {
+            count++;
+            maxStatements = Math.max(maxStatements, statements);
+            if (lastLoggedAt != 0 && now - lastLoggedAt < logIntervalMs) {
+                suppressed++;
+                return -1;
+            }
+            long result = suppressed;
+            lastLoggedAt = now;
+            suppressed = 0;
+            return result;
+        }
+
+        public String getIndicator() {
+            return indicator;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized int getMaxStatements() {
+            return maxStatements;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.bmslookup.service;
 
+import com.example.bmslookup.jfr.FlightEvents;
+import com.example.bmslookup.util.LoopLogger;
 import com.example.bmslookup.util.TableValidator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -7,11 +9,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.ResultSet;
@@ -21,6 +25,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * خدمة التعامل مع قاعدة البيانات Teradata
@@ -32,6 +42,9 @@ public class LookupService {
 
     private static final Logger logger = LoggerFactory.getLogger(LookupService.class);
 
+    // اسم "الكاش" في أحداث JFR: الانضمام إلى بحث جارٍ يُسجَّل كـ hit
+    private static final String LOOKUP_CACHE = "lookup.single-flight";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -40,13 +53,24 @@ public class LookupService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Value("${app.lookup.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    // أقصى انتظار لبحث جارٍ = مهلة الاستعلام، بعدها ينفذ الطلب الاستعلام بنفسه
+    @Value("${teradata.query-timeout:300}")
+    private int queryTimeoutSeconds;
+
+    // طلبات البحث الجارية حالياً - الطلبات المتطابقة المتزامنة تشترك في تنفيذ واحد
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlightLookups = new ConcurrentHashMap<>();
+
     /**
      * تنظيف وتصحيح JSON قبل التحليل
      * 
      * @param jsonString JSON المراد تنظيفه
      * @return JSON نظيف
      */
-    private String cleanJson(String jsonString) {
+    // package-private for the JMH benchmarks (src/jmh)
+    String cleanJson(String jsonString) {
         if (jsonString == null || jsonString.trim().isEmpty()) {
             return jsonString;
         }
@@ -176,40 +200,47 @@ public class LookupService {
         }
         String resolvedTableName = tableValidator.resolveTableName(tableName);
         int successCount = 0;
-        for (com.fasterxml.jackson.databind.JsonNode recordNode : listNode) {
-            try {
-                // Check for duplicate id
-                if (recordNode.has("id") && !recordNode.get("id").isNull()) {
-                    String idValue = recordNode.get("id").asText();
-                    if (recordExists(resolvedTableName, idValue)) {
-                        throw new DuplicateIdException("id is duplicate");
-                    }
-                }
-                // Validate required columns
-                jdbcTemplate.query("SELECT * FROM " + resolvedTableName + " WHERE 1=0", rs -> {
-                    java.sql.ResultSetMetaData meta = rs.getMetaData();
-                    for (int i = 1; i <= meta.getColumnCount(); i++) {
-                        String col = meta.getColumnName(i);
-                        if (!recordNode.has(col) || recordNode.get(col).isNull() || (recordNode.get(col).isTextual() && recordNode.get(col).asText().trim().isEmpty())) {
-                            throw new MissingAttributesException("attribute is missed: " + col);
+        // One summary line per batch instead of one INFO line per row
+        LoopLogger loop = LoopLogger.start(logger, "Bulk insert into " + resolvedTableName);
+        try {
+            for (com.fasterxml.jackson.databind.JsonNode recordNode : listNode) {
+                loop.nextItem();
+                try {
+                    // Check for duplicate id
+                    if (recordNode.has("id") && !recordNode.get("id").isNull()) {
+                        String idValue = recordNode.get("id").asText();
+                        if (recordExists(resolvedTableName, idValue)) {
+                            throw new DuplicateIdException("id is duplicate");
                         }
                     }
-                    return null;
-                });
-                // Build and execute insert query
-                String insertQuery = buildInsertQuery(resolvedTableName, recordNode);
-                logger.debug("Bulk Insert Query: {}", insertQuery);
-                int rowsAffected = jdbcTemplate.update(insertQuery);
-                logger.info("تم إدراج سجل في bulk {}: {}", resolvedTableName, rowsAffected);
-                if (rowsAffected > 0) successCount++;
-            } catch (DuplicateIdException | MissingAttributesException e) {
-                throw e;
-            } catch (Exception e) {
-                logger.error("Bulk insert error for record: {}", recordNode, e);
-                throw new RuntimeException("Bulk insert failed for a record: " + e.getMessage(), e);
+                    // Validate required columns
+                    jdbcTemplate.query("SELECT * FROM " + resolvedTableName + " WHERE 1=0", rs -> {
+                        java.sql.ResultSetMetaData meta = rs.getMetaData();
+                        for (int i = 1; i <= meta.getColumnCount(); i++) {
+                            String col = meta.getColumnName(i);
+                            if (!recordNode.has(col) || recordNode.get(col).isNull() || (recordNode.get(col).isTextual() && recordNode.get(col).asText().trim().isEmpty())) {
+                                throw new MissingAttributesException("attribute is missed: " + col);
+                            }
+                        }
+                        return null;
+                    });
+                    // Build and execute insert query
+                    String insertQuery = buildInsertQuery(resolvedTableName, recordNode);
+                    loop.debug("Bulk Insert Query: {}", insertQuery);
+                    int rowsAffected = jdbcTemplate.update(insertQuery);
+                    loop.count("rowsInserted", rowsAffected);
+                    if (rowsAffected > 0) successCount++;
+                } catch (DuplicateIdException | MissingAttributesException e) {
+                    throw e;
+                } catch (Exception e) {
+                    logger.error("Bulk insert error for record: {}", recordNode, e);
+                    throw new RuntimeException("Bulk insert failed for a record: " + e.getMessage(), e);
+                }
             }
+        } finally {
+            loop.count("succeeded", successCount);
+            loop.finish();
         }
-        logger.info("تم إدراج {} من {} سجل بنجاح في الجدول {}", successCount, listNode.size(), resolvedTableName);
         return successCount == listNode.size();
     }
 
@@ -269,6 +300,7 @@ public class LookupService {
     /**
      * البحث عن سجل بواسطة المعرف
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String lookupById(String tableName, String id) {
         logger.info("البحث عن السجل {} في الجدول: {}", id, tableName);
 
@@ -284,17 +316,19 @@ public class LookupService {
             logger.info("تم تحويل اسم الجدول من '{}' إلى '{}'", tableName, resolvedTableName);
 
             String selectQuery = "SELECT * FROM " + resolvedTableName + " WHERE id = ?";
-            
-            Map<String, Object> result = jdbcTemplate.queryForObject(selectQuery, 
-                new Object[]{id}, new MapRowMapper());
-            
-            if (result != null) {
-                String jsonResult = objectMapper.writeValueAsString(result);
-                logger.info("تم العثور على السجل {} في الجدول {}", id, resolvedTableName);
-                return jsonResult;
-            }
 
-            return null;
+            return singleFlight("id|" + resolvedTableName + "|" + id, () -> {
+                Map<String, Object> result = jdbcTemplate.queryForObject(selectQuery,
+                    new Object[]{id}, new MapRowMapper());
+
+                if (result != null) {
+                    String jsonResult = objectMapper.writeValueAsString(result);
+                    logger.info("تم العثور على السجل {} في الجدول {}", id, resolvedTableName);
+                    return jsonResult;
+                }
+
+                return null;
+            });
 
         } catch (EmptyResultDataAccessException e) { 
             logger.info("لم يتم العثور على السجل {} في الجدول {}", id, tableName);
@@ -311,6 +345,7 @@ public class LookupService {
     /**
      * البحث عن سجلات بواسطة معايير
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String lookupByCriteria(String tableName, String jsonCriteria) {
         logger.info("البحث في الجدول: {} بواسطة معايير", tableName);
 
@@ -331,16 +366,18 @@ public class LookupService {
             
             // بناء query البحث
             String selectQuery = buildSelectQuery(resolvedTableName, criteriaNode);
-            
-            List<Map<String, Object>> results = jdbcTemplate.query(selectQuery, new MapRowMapper());
-            
-            if (!results.isEmpty()) {
-                String jsonResult = objectMapper.writeValueAsString(results);
-                logger.info("تم العثور على {} سجل في الجدول {}", results.size(), resolvedTableName);
-                return jsonResult;
-            }
 
-            return null;
+            return singleFlight("criteria|" + resolvedTableName + "|" + canonicalCriteria(criteriaNode), () -> {
+                List<Map<String, Object>> results = jdbcTemplate.query(selectQuery, new MapRowMapper());
+
+                if (!results.isEmpty()) {
+                    String jsonResult = objectMapper.writeValueAsString(results);
+                    logger.info("تم العثور على {} سجل في الجدول {}", results.size(), resolvedTableName);
+                    return jsonResult;
+                }
+
+                return null;
+            });
 
         } catch (JsonProcessingException e) {
             logger.error("خطأ في تحليل معايير البحث: {}", e.getMessage());
@@ -359,6 +396,7 @@ public class LookupService {
     /**
      * جلب جميع السجلات من الجدول
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String lookupAll(String tableName) {
         logger.info("جلب جميع السجلات من الجدول: {}", tableName);
 
@@ -374,16 +412,18 @@ public class LookupService {
             logger.info("تم تحويل اسم الجدول من '{}' إلى '{}'", tableName, resolvedTableName);
 
             String selectQuery = "SELECT * FROM " + resolvedTableName + " ORDER BY id";
-            
-            List<Map<String, Object>> results = jdbcTemplate.query(selectQuery, new MapRowMapper());
-            
-            if (!results.isEmpty()) {
-                String jsonResult = objectMapper.writeValueAsString(results);
-                logger.info("تم جلب {} سجل من الجدول {}", results.size(), resolvedTableName);
-                return jsonResult;
-            }
 
-            return null;
+            return singleFlight("all|" + resolvedTableName, () -> {
+                List<Map<String, Object>> results = jdbcTemplate.query(selectQuery, new MapRowMapper());
+
+                if (!results.isEmpty()) {
+                    String jsonResult = objectMapper.writeValueAsString(results);
+                    logger.info("تم جلب {} سجل من الجدول {}", results.size(), resolvedTableName);
+                    return jsonResult;
+                }
+
+                return null;
+            });
 
         } catch (DataAccessException e) {
             logger.error("خطأ في قاعدة البيانات أثناء جلب البيانات: {}", e.getMessage());
@@ -394,6 +434,71 @@ public class LookupService {
         }
     }
 
+    /**
+     * تنفيذ واحد لطلبات البحث المتطابقة المتزامنة (single-flight)
+     * أول طلب ينفذ الاستعلام، والطلبات المتطابقة التي تصل أثناء التنفيذ تنتظر
+     * نفس النتيجة المسلسلة (أو نفس الاستثناء) بدلاً من تنفيذ استعلام جديد
+     * الانتظار محدود بمهلة الاستعلام، وبعدها ينفذ الطلب المنتظر الاستعلام بنفسه
+     * دوال البحث المستدعية تعمل بدون معاملة (NOT_SUPPORTED) حتى لا يحجز المنتظر اتصالاً من الـ pool
+     *
+     * @param key الجدول المحلول + المعرف أو المعايير الموحدة
+     * @param loader تنفيذ الاستعلام وتسلسل النتيجة
+     * @return JSON الناتج
+     */
+    private String singleFlight(String key, LookupLoader loader) throws Exception {
+        if (!coalescingEnabled) {
+            return loader.load();
+        }
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlightLookups.putIfAbsent(key, future);
+        FlightEvents.cacheLookup(LOOKUP_CACHE, existing != null);
+        if (existing != null) {
+            logger.debug("انضمام إلى بحث جارٍ: {}", key);
+            try {
+                return existing.get(queryTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+            } catch (TimeoutException e) {
+                logger.warn("Single-flight lookup still running after {}s, querying directly: {}", queryTimeoutSeconds, key);
+                return loader.load();
+            }
+        }
+
+        try {
+            String result = loader.load();
+            future.complete(result);
+            return result;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(key, future);
+        }
+    }
+
+    /**
+     * صيغة موحدة لمعايير البحث (ترتيب الحقول أبجدياً) لاستخدامها كمفتاح
+     */
+    private String canonicalCriteria(JsonNode criteriaNode) throws JsonProcessingException {
+        if (criteriaNode == null || !criteriaNode.isObject()) {
+            return String.valueOf(criteriaNode);
+        }
+        Map<String, JsonNode> sorted = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = criteriaNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            sorted.put(field.getKey(), field.getValue());
+        }
+        return objectMapper.writeValueAsString(sorted);
+    }
+
+    @FunctionalInterface
+    private interface LookupLoader {
+        String load() throws Exception;
+    }
+
     /**
      * فحص وجود سجل
      */
@@ -413,7 +518,7 @@ public class LookupService {
     /**
  * بناء query الإدراج - يتطلب ID مخصص
  */
-private String buildInsertQuery(String tableName, JsonNode jsonNode) {
+String buildInsertQuery(String tableName, JsonNode jsonNode) {
     StringBuilder query = new StringBuilder();
     query.append("INSERT INTO ").append(tableName).append(" (");
     
@@ -485,7 +590,7 @@ private String buildInsertQuery(String tableName, JsonNode jsonNode) {
     /**
      * بناء query البحث
      */
-    private String buildSelectQuery(String tableName, JsonNode criteriaNode) {
+    String buildSelectQuery(String tableName, JsonNode criteriaNode) {
         StringBuilder query = new StringBuilder();
         query.append("SELECT * FROM ").append(tableName);
         
@@ -518,7 +623,7 @@ private String buildInsertQuery(String tableName, JsonNode jsonNode) {
     /**
      * RowMapper لتحويل النتائج إلى Map
      */
-    private static class MapRowMapper implements RowMapper<Map<String, Object>> {
+    static class MapRowMapper implements RowMapper<Map<String, Object>> {
         @Override
         public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
             Map<String, Object> row = new HashMap<>();
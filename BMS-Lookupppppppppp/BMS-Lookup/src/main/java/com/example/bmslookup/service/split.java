@@ -1,5 +1,6 @@
 package com.example.bmslookup.service;
 
+import com.example.bmslookup.util.LoopLogger;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -62,31 +63,37 @@ public class split {
             throw new Exception("beneficiaryData array missing");
         }
         
-        // معالجة كل مستفيد
-        for (JsonNode beneficiary : beneficiaries) {
-            String beneficiaryId = beneficiary.get("id").asText();
-            logger.info("معالجة المستفيد: {}", beneficiaryId);
-            
-            // التحقق من وجود المستفيد
-            if (!beneficiaryExists(beneficiaryId)) {
-                logger.error("المستفيد غير موجود: {}", beneficiaryId);
-                throw new Exception("Beneficiary not found: " + beneficiaryId);
-            }
-            
-            // تحديث بيانات المستفيد الأساسية
-            updateBeneficiaryFamilyId(beneficiaryId, newFamilyId, splitDate);
-            
-            // تحديث بيانات الوظائف إذا كانت موجودة
-            if (beneficiary.has("employments") && beneficiary.get("employments").isArray()) {
-                upsertEmployments(beneficiary.get("employments"), beneficiaryId, newFamilyId, splitDate);
-            }
-            
-            // تحديث بيانات الاتصال إذا كانت موجودة
-            if (beneficiary.has("contacts") && beneficiary.get("contacts").isArray()) {
-                upsertContacts(beneficiary.get("contacts"), beneficiaryId, newFamilyId, splitDate);
+        // معالجة كل مستفيد (سطر ملخص واحد بدلاً من سطر INFO لكل مستفيد)
+        LoopLogger loop = LoopLogger.start(logger, "Split to family " + newFamilyId);
+        try {
+            for (JsonNode beneficiary : beneficiaries) {
+                String beneficiaryId = beneficiary.get("id").asText();
+                loop.nextItem();
+                loop.debug("معالجة المستفيد: {}", beneficiaryId);
+
+                // التحقق من وجود المستفيد
+                if (!beneficiaryExists(beneficiaryId)) {
+                    logger.error("المستفيد غير موجود: {}", beneficiaryId);
+                    throw new Exception("Beneficiary not found: " + beneficiaryId);
+                }
+
+                // تحديث بيانات المستفيد الأساسية
+                updateBeneficiaryFamilyId(beneficiaryId, newFamilyId, splitDate, loop);
+
+                // تحديث بيانات الوظائف إذا كانت موجودة
+                if (beneficiary.has("employments") && beneficiary.get("employments").isArray()) {
+                    upsertEmployments(beneficiary.get("employments"), beneficiaryId, newFamilyId, splitDate, loop);
+                }
+
+                // تحديث بيانات الاتصال إذا كانت موجودة
+                if (beneficiary.has("contacts") && beneficiary.get("contacts").isArray()) {
+                    upsertContacts(beneficiary.get("contacts"), beneficiaryId, newFamilyId, splitDate, loop);
+                }
+
+                loop.count("beneficiaries");
             }
-            
-            logger.info("تم تحديث المستفيد بنجاح: {}", beneficiaryId);
+        } finally {
+            loop.finish();
         }
         
         logger.info("تمت عملية تقسيم المستفيدين بنجاح");
@@ -104,16 +111,16 @@ public class split {
     /**
      * تحديث familyId للمستفيد
      */
-    private void updateBeneficiaryFamilyId(String beneficiaryId, String newFamilyId, String splitDate) {
+    private void updateBeneficiaryFamilyId(String beneficiaryId, String newFamilyId, String splitDate, LoopLogger loop) {
         // البحث عن المستفيد أولاً للحصول على familyId القديم
         Map<String, Object> currentBeneficiary = findBeneficiaryById(beneficiaryId);
         if (currentBeneficiary == null) {
-            logger.warn("المستفيد غير موجود: {}", beneficiaryId);
+            loop.warn("المستفيد غير موجود: {}", beneficiaryId);
             return;
         }
         
         String currentFamilyId = (String) currentBeneficiary.get("familyId");
-        logger.info("familyId الحالي للمستفيد {}: {}", beneficiaryId, currentFamilyId);
+        loop.debug("familyId الحالي للمستفيد {}: {}", beneficiaryId, currentFamilyId);
         
         // تحديث familyId إلى القيمة الجديدة
         String sql = "UPDATE GDEV1T_UHI_DATA.beneficiary SET familyId = ?, updatedAt = CURRENT_TIMESTAMP WHERE id = ?";
@@ -121,16 +128,16 @@ public class split {
         int rowsUpdated = jdbcTemplate.update(sql, newFamilyId, beneficiaryId);
         
         if (rowsUpdated > 0) {
-            logger.info("تم تحديث familyId للمستفيد {} من {} إلى {}", beneficiaryId, currentFamilyId, newFamilyId);
+            loop.count("familyIdUpdated");
         } else {
-            logger.warn("فشل في تحديث familyId للمستفيد {}", beneficiaryId);
+            loop.warn("فشل في تحديث familyId للمستفيد {}", beneficiaryId);
         }
     }
     
     /**
      * تحديث أو إدراج بيانات الوظائف
      */
-    private void upsertEmployments(JsonNode employments, String beneficiaryId, String newFamilyId, String splitDate) {
+    private void upsertEmployments(JsonNode employments, String beneficiaryId, String newFamilyId, String splitDate, LoopLogger loop) {
         Set<String> validColumns = getTableColumns("GDEV1T_UHI_DATA.employment");
         for (JsonNode employment : employments) {
             if (!employment.has("id")) continue;
@@ -158,7 +165,8 @@ public class split {
                     String sql = "UPDATE GDEV1T_UHI_DATA.employment SET " + String.join(", ", setClauses) + " WHERE id = ?";
                     values.add(employmentId);
                     jdbcTemplate.update(sql, values.toArray());
-                    logger.info("تم تحديث بيانات الوظيفة {} للمستفيد {}", employmentId, beneficiaryId);
+                    loop.count("employmentsUpdated");
+                    loop.debug("تم تحديث بيانات الوظيفة {} للمستفيد {}", employmentId, beneficiaryId);
                 }
             } else {
                 // Dynamic insert
@@ -182,7 +190,8 @@ public class split {
                 if (!columns.isEmpty()) {
                     String sql = "INSERT INTO GDEV1T_UHI_DATA.employment (" + String.join(", ", columns) + ") VALUES (" + String.join(", ", placeholders) + ")";
                     jdbcTemplate.update(sql, values.toArray());
-                    logger.info("تم إدراج بيانات الوظيفة {} للمستفيد {}", employmentId, beneficiaryId);
+                    loop.count("employmentsInserted");
+                    loop.debug("تم إدراج بيانات الوظيفة {} للمستفيد {}", employmentId, beneficiaryId);
                 }
             }
         }
@@ -229,7 +238,7 @@ public class split {
     }
     
    
-    private void upsertContacts(JsonNode contacts, String beneficiaryId, String newFamilyId, String splitDate) {
+    private void upsertContacts(JsonNode contacts, String beneficiaryId, String newFamilyId, String splitDate, LoopLogger loop) {
         Set<String> validColumns = getTableColumns("GDEV1T_UHI_DATA.contact");
         for (JsonNode contact : contacts) {
             if (!contact.has("id")) continue;
@@ -257,7 +266,8 @@ public class split {
                     String sql = "UPDATE GDEV1T_UHI_DATA.contact SET " + String.join(", ", setClauses) + " WHERE id = ?";
                     values.add(contactId);
                     jdbcTemplate.update(sql, values.toArray());
-                    logger.info("تم تحديث بيانات الاتصال {} للمستفيد {}", contactId, beneficiaryId);
+                    loop.count("contactsUpdated");
+                    loop.debug("تم تحديث بيانات الاتصال {} للمستفيد {}", contactId, beneficiaryId);
                 }
             } else {
                 // Dynamic insert
@@ -281,7 +291,8 @@ public class split {
                 if (!columns.isEmpty()) {
                     String sql = "INSERT INTO GDEV1T_UHI_DATA.contact (" + String.join(", ", columns) + ") VALUES (" + String.join(", ", placeholders) + ")";
                     jdbcTemplate.update(sql, values.toArray());
-                    logger.info("تم إدراج بيانات الاتصال {} للمستفيد {}", contactId, beneficiaryId);
+                    loop.count("contactsInserted");
+                    loop.debug("تم إدراج بيانات الاتصال {} للمستفيد {}", contactId, beneficiaryId);
                 }
             }
         }
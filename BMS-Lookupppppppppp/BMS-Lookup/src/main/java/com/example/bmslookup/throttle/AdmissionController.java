@@ -0,0 +1,191 @@
+package com.example.bmslookup.throttle;
+
+import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.dto.GenericRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control driven by Hikari pool saturation.
+ * Periodically samples threads awaiting a connection, active connections and
+ * the mean connection acquire time; while the pool is saturated, low-priority
+ * work (configured channels and indicators) is rejected immediately instead of
+ * queuing for the full connection timeout.
+ *
+ * Channels are the originatingChannel codes GGHeader accepts (e.g. "10");
+ * any other configured value is reported at startup, since it can never match.
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final String ACQUIRE_TIMER = "hikaricp.connections.acquire";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${app.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.admission.max-awaiting-threads:10}")
+    private int maxAwaitingThreads;
+
+    @Value("${app.admission.max-active-ratio:1.0}")
+    private double maxActiveRatio;
+
+    @Value("${app.admission.max-acquire-time-ms:1000}")
+    private long maxAcquireTimeMs;
+
+    @Value("${app.admission.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Value("${app.admission.low-priority-channels:}")
+    private String lowPriorityChannels;
+
+    @Value("${app.admission.low-priority-indicators:i}")
+    private String lowPriorityIndicators;
+
+    private Set<String> lowPriorityChannelSet;
+    private Set<String> lowPriorityIndicatorSet;
+
+    private volatile boolean saturated;
+    private double lastAcquireTotalMs;
+    private long lastAcquireCount;
+
+    @PostConstruct
+    public void init() {
+        lowPriorityChannelSet = toUpperCaseSet(lowPriorityChannels);
+        lowPriorityIndicatorSet = toUpperCaseSet(lowPriorityIndicators);
+        for (String channel : lowPriorityChannelSet) {
+            if (!GGHeader.isAllowedChannel(channel)) {
+                logger.warn("app.admission.low-priority-channels: '{}' is not an allowed originatingChannel "
+                        + "and will never match", channel);
+            }
+        }
+        logger.info("Admission control enabled={}, low-priority channels={}, indicators={}",
+                enabled, lowPriorityChannelSet, lowPriorityIndicatorSet);
+    }
+
+    /**
+     * Samples the pool and updates the saturation state.
+     */
+    @Scheduled(fixedDelayString = "${app.admission.sample-interval-ms:500}")
+    public void samplePool() {
+        if (!enabled) {
+            return;
+        }
+        HikariPoolMXBean pool = poolMXBean();
+        if (pool == null) {
+            return;
+        }
+
+        int awaiting = pool.getThreadsAwaitingConnection();
+        int active = pool.getActiveConnections();
+        int total = Math.max(pool.getTotalConnections(), 1);
+        double meanAcquireMs = sampleMeanAcquireTimeMs();
+
+        boolean nowSaturated = awaiting >= maxAwaitingThreads
+                || ((double) active / total >= maxActiveRatio && awaiting > 0)
+                || meanAcquireMs >= maxAcquireTimeMs;
+
+        if (nowSaturated != saturated) {
+            logger.warn("Connection pool {} - awaiting: {}, active: {}/{}, mean acquire: {}ms",
+                    nowSaturated ? "saturated, shedding low-priority work" : "recovered",
+                    awaiting, active, total, Math.round(meanAcquireMs));
+        }
+        saturated = nowSaturated;
+    }
+
+    /**
+     * Decides whether a request may proceed.
+     *
+     * @param request incoming request
+     * @return true if the request is admitted
+     */
+    public boolean admit(GenericRequest request) {
+        if (!enabled || !saturated) {
+            return true;
+        }
+        return !isLowPriority(request);
+    }
+
+    /**
+     * Low-priority work is shed first: configured channel codes and indicators (e.g. bulk insert).
+     */
+    public boolean isLowPriority(GenericRequest request) {
+        String channel = request.getGGheader() != null ? request.getGGheader().getOriginatingChannel() : null;
+        String indicator = request.getIndicator();
+        return channel != null && lowPriorityChannelSet.contains(channel.trim().toUpperCase())
+                || indicator != null && lowPriorityIndicatorSet.contains(indicator.trim().toUpperCase());
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Mean acquire time since the previous sample, from the Micrometer Hikari timer when available.
+     */
+    private double sampleMeanAcquireTimeMs() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return 0;
+        }
+        Timer timer = registry.find(ACQUIRE_TIMER).timer();
+        if (timer == null) {
+            return 0;
+        }
+        double totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+        long count = timer.count();
+        double deltaMs = totalMs - lastAcquireTotalMs;
+        long deltaCount = count - lastAcquireCount;
+        lastAcquireTotalMs = totalMs;
+        lastAcquireCount = count;
+        return deltaCount > 0 ? deltaMs / deltaCount : 0;
+    }
+
+    private HikariPoolMXBean poolMXBean() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (Exception e) {
+            logger.debug("Could not access Hikari pool MXBean", e);
+        }
+        return null;
+    }
+
+    private static Set<String> toUpperCaseSet(String csv) {
+        Set<String> values = new HashSet<>();
+        for (String value : Arrays.asList(csv.split(","))) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim().toUpperCase());
+            }
+        }
+        return values;
+    }
+}
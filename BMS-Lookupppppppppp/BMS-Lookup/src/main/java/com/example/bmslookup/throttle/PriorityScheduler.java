@@ -0,0 +1,315 @@
+package com.example.bmslookup.throttle;
+
+import com.example.bmslookup.dto.GGHeader;
+import com.example.bmslookup.dto.GenericRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Weighted fair scheduler in front of the service layer.
+ * Requests are classified by originatingChannel and originatingUserType; a fixed
+ * number of permits (normally the DB pool size) is handed out across the class
+ * queues in weighted-fair order, so a heavy feed on one channel only gets its
+ * share and cannot push other channels to the back of one long FIFO queue.
+ * Per-class token-bucket rate limits reject excess requests immediately.
+ *
+ * Weights and rates are keyed on the codes GGHeader accepts, e.g. channel
+ * weights "16:6,10:2" and user type weights "1:1,2:2"; keys GGHeader would
+ * reject are reported at startup, since they can never match.
+ */
+@Component
+public class PriorityScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityScheduler.class);
+
+    private static final Permit NO_OP_PERMIT = new Permit(null);
+
+    @Value("${app.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scheduler.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrent;
+
+    @Value("${app.scheduler.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    @Value("${app.scheduler.default-weight:4}")
+    private double defaultWeight;
+
+    @Value("${app.scheduler.channel-weights:}")
+    private String channelWeights;
+
+    @Value("${app.scheduler.user-type-weights:}")
+    private String userTypeWeights;
+
+    @Value("${app.scheduler.channel-rate-limits:}")
+    private String channelRateLimits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, FlowQueue> queues = new HashMap<>();
+    private Map<String, Double> channelWeightMap;
+    private Map<String, Double> userTypeWeightMap;
+    private Map<String, Double> channelRateMap;
+    private int available;
+    private int waiting;
+    private double virtualTime;
+
+    @PostConstruct
+    public void init() {
+        channelWeightMap = parse(channelWeights);
+        userTypeWeightMap = parse(userTypeWeights);
+        channelRateMap = parse(channelRateLimits);
+        warnUnknownKeys("app.scheduler.channel-weights", channelWeightMap, GGHeader::isAllowedChannel);
+        warnUnknownKeys("app.scheduler.user-type-weights", userTypeWeightMap, GGHeader::isAllowedUserType);
+        warnUnknownKeys("app.scheduler.channel-rate-limits", channelRateMap, GGHeader::isAllowedChannel);
+        available = maxConcurrent;
+        logger.info("Priority scheduler enabled={}, permits={}, channel weights={}, user type weights={}, rate limits={}",
+                enabled, maxConcurrent, channelWeightMap, userTypeWeightMap, channelRateMap);
+        if (enabled && channelRateMap.isEmpty() && allDefault(channelWeightMap) && allDefault(userTypeWeightMap)) {
+            logger.warn("Priority scheduler is enabled but no weight differs from the default and no rate limit is set; "
+                    + "it only caps concurrency at {} permits", maxConcurrent);
+        }
+    }
+
+    private boolean allDefault(Map<String, Double> weights) {
+        for (double weight : weights.values()) {
+            if (weight != defaultWeight) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a service-layer permit in weighted-fair order.
+     *
+     * @param request incoming request
+     * @return permit, to be released when the request finishes
+     * @throws RejectedException if the class is over its rate limit or the wait times out
+     */
+    public Permit acquire(GenericRequest request) throws RejectedException {
+        if (!enabled) {
+            return NO_OP_PERMIT;
+        }
+        Waiter waiter;
+        lock.lock();
+        try {
+            FlowQueue queue = queueFor(request.getGGheader());
+            if (!queue.tryConsumeRate()) {
+                throw new RejectedException("Rate limit exceeded for " + queue.key);
+            }
+            if (available > 0 && waiting == 0) {
+                available--;
+                return new Permit(this);
+            }
+            double start = Math.max(virtualTime, queue.lastFinish);
+            waiter = new Waiter(start + 1.0 / queue.weight);
+            queue.lastFinish = waiter.finishTag;
+            queue.waiters.addLast(waiter);
+            waiting++;
+        } finally {
+            lock.unlock();
+        }
+
+        boolean granted = waiter.await(maxWaitMs);
+        if (!granted) {
+            lock.lock();
+            try {
+                // A grant may race with the timeout; keep it rather than leak the permit
+                granted = waiter.granted;
+                if (!granted) {
+                    for (FlowQueue queue : queues.values()) {
+                        if (queue.waiters.remove(waiter)) {
+                            waiting--;
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!granted) {
+            throw new RejectedException("Timed out waiting " + maxWaitMs + "ms for a service permit");
+        }
+        return new Permit(this);
+    }
+
+    /**
+     * Returns a permit and grants it to the waiter with the smallest finish tag.
+     */
+    private void release() {
+        lock.lock();
+        try {
+            FlowQueue next = null;
+            for (FlowQueue queue : queues.values()) {
+                Waiter head = queue.waiters.peekFirst();
+                if (head != null && (next == null || head.finishTag < next.waiters.peekFirst().finishTag)) {
+                    next = queue;
+                }
+            }
+            if (next == null) {
+                available++;
+                return;
+            }
+            Waiter waiter = next.waiters.pollFirst();
+            waiting--;
+            virtualTime = waiter.finishTag;
+            waiter.grant();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FlowQueue queueFor(GGHeader header) {
+        String channel = header != null && header.getOriginatingChannel() != null ? header.getOriginatingChannel().trim() : "-";
+        String userType = header != null && header.getOriginatingUserType() != null ? header.getOriginatingUserType().trim() : "-";
+        String key = channel + "/" + userType;
+        FlowQueue queue = queues.get(key);
+        if (queue == null) {
+            double weight = lookup(channelWeightMap, channel, defaultWeight) * lookup(userTypeWeightMap, userType, 1.0);
+            queue = new FlowQueue(key, Math.max(weight, 0.01), lookup(channelRateMap, channel, 0));
+            queues.put(key, queue);
+        }
+        return queue;
+    }
+
+    private static double lookup(Map<String, Double> map, String key, double defaultValue) {
+        Double value = map.get(key.toUpperCase());
+        return value != null ? value : defaultValue;
+    }
+
+    private static void warnUnknownKeys(String property, Map<String, Double> values, Predicate<String> allowed) {
+        for (String key : values.keySet()) {
+            if (!allowed.test(key)) {
+                logger.warn("{}: '{}' is not a value GGHeader accepts and will never match", property, key);
+            }
+        }
+    }
+
+    /**
+     * Parses "KEY:value,KEY:value" into an upper-cased key map.
+     */
+    private static Map<String, Double> parse(String spec) {
+        Map<String, Double> values = new HashMap<>();
+        if (spec == null) {
+            return values;
+        }
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            try {
+                values.put(entry.substring(0, colon).trim().toUpperCase(), Double.parseDouble(entry.substring(colon + 1).trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid scheduler setting: {}", entry);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Service-layer permit; release exactly once when the request is done.
+     */
+    public static class Permit implements AutoCloseable {
+
+        private final PriorityScheduler scheduler;
+        private boolean released;
+
+        Permit(PriorityScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        public void release() {
+            if (scheduler != null && !released) {
+                released = true;
+                scheduler.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    /**
+     * Thrown when a request is rate limited or cannot get a permit in time.
+     */
+    public static class RejectedException extends Exception {
+        public RejectedException(String message) { super(message); }
+    }
+
+    /**
+     * Per-class queue with its weight, last finish tag and token bucket.
+     */
+    private static class FlowQueue {
+        final String key;
+        final double weight;
+        final double ratePerSecond;
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        double lastFinish;
+        double tokens;
+        long lastRefillNanos = System.nanoTime();
+
+        FlowQueue(String key, double weight, double ratePerSecond) {
+            this.key = key;
+            this.weight = weight;
+            this.ratePerSecond = ratePerSecond;
+            this.tokens = ratePerSecond;
+        }
+
+        boolean tryConsumeRate() {
+            if (ratePerSecond <= 0) {
+                return true;
+            }
+            long now = System.nanoTime();
+            tokens = Math.min(ratePerSecond, tokens + (now - lastRefillNanos) / 1e9 * ratePerSecond);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A request waiting for a permit.
+     */
+    private static class Waiter {
+        final double finishTag;
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile boolean granted;
+
+        Waiter(double finishTag) {
+            this.finishTag = finishTag;
+        }
+
+        void grant() {
+            granted = true;
+            latch.countDown();
+        }
+
+        boolean await(long timeoutMs) {
+            try {
+                return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
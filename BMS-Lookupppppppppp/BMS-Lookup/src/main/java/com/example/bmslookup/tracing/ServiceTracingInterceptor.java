@@ -0,0 +1,38 @@
+package com.example.bmslookup.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Wraps service bean calls in a child span named "Class.method".
+ * Registered by TracingConfig as an advisor on the service package, so it joins
+ * the proxies Spring already builds for @Transactional services.
+ */
+public class ServiceTracingInterceptor implements MethodInterceptor {
+
+    private final Tracer tracer;
+
+    public ServiceTracingInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Span parent = tracer.current();
+        if (!parent.isRecording()) {
+            return invocation.proceed();
+        }
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis()) : invocation.getMethod().getDeclaringClass();
+        Span span = tracer.startSpan(targetClass.getSimpleName() + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            tracer.finish(span);
+        }
+    }
+}
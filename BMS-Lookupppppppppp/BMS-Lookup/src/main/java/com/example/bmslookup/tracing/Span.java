@@ -0,0 +1,152 @@
+package com.example.bmslookup.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timed operation of a trace: the SOAP request, a handler or service call,
+ * or a JDBC statement. Created and finished through {@link Tracer} on the thread
+ * that runs the operation; finished spans are immutable.
+ *
+ * {@link #NOOP} is returned when nothing is being traced, so instrumented code
+ * never needs a null check.
+ */
+public class Span {
+
+    /**
+     * Span that records nothing; tag and error calls are ignored.
+     */
+    public static final Span NOOP = new Span();
+
+    // Start times are derived from nanoTime against one wall-clock base, for microsecond precision
+    private static final long BASE_EPOCH_MICROS = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    private static final long BASE_NANOS = System.nanoTime();
+
+    private final Trace trace;
+    private final Span parent;
+    private final String spanId;
+    private final String parentId;
+    private final String name;
+    private final String thread;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private long durationNanos = -1;
+    private Map<String, String> tags;
+    private boolean error;
+
+    Span(Trace trace, Span parent, String spanId, String parentId, String name) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.thread = Thread.currentThread().getName();
+        this.startNanos = System.nanoTime();
+        this.startEpochMicros = BASE_EPOCH_MICROS + TimeUnit.NANOSECONDS.toMicros(startNanos - BASE_NANOS);
+    }
+
+    private Span() {
+        this.trace = null;
+        this.parent = null;
+        this.spanId = null;
+        this.parentId = null;
+        this.name = "noop";
+        this.thread = null;
+        this.startEpochMicros = 0;
+        this.startNanos = 0;
+    }
+
+    /**
+     * Adds a tag; null values are skipped.
+     *
+     * @return this span
+     */
+    public Span tag(String key, Object value) {
+        if (trace != null && value != null && durationNanos < 0) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed, tagging the exception type and message.
+     */
+    public void error(Throwable throwable) {
+        if (trace != null && durationNanos < 0) {
+            error = true;
+            tag("error", throwable != null ? throwable.getClass().getSimpleName() + ": " + throwable.getMessage() : "true");
+        }
+    }
+
+    /**
+     * @return true if this span records anything
+     */
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    /**
+     * Ends the span; called by Tracer.finish.
+     *
+     * @return true the first time
+     */
+    boolean end() {
+        if (trace == null || durationNanos >= 0) {
+            return false;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        return true;
+    }
+
+    Trace getTrace() {
+        return trace;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    public String getTraceId() {
+        return trace != null ? trace.getTraceId() : null;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    /**
+     * @return duration in nanoseconds, or -1 while the span is running
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Map<String, String> getTags() {
+        return tags != null ? tags : Collections.<String, String>emptyMap();
+    }
+
+    public boolean isError() {
+        return error;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bmslookup.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spans of one request, collected as they finish.
+ * Spans may finish on several threads (parallel batch items), so the span list
+ * is guarded; the trace is handed to the exporter once its root span finishes.
+ */
+public final class Trace {
+
+    private final String traceId;
+    private final String remoteParentId;
+    private final boolean sampled;
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private int started;
+    private int dropped;
+    private Span root;
+
+    Trace(String traceId, String remoteParentId, boolean sampled, int maxSpans) {
+        this.traceId = traceId;
+        this.remoteParentId = remoteParentId;
+        this.sampled = sampled;
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * Reserves room for a new span.
+     *
+     * @return false once the trace holds maxSpans spans; later spans are only counted
+     */
+    synchronized boolean reserve() {
+        if (started >= maxSpans) {
+            dropped++;
+            return false;
+        }
+        started++;
+        return true;
+    }
+
+    synchronized void finished(Span span) {
+        spans.add(span);
+    }
+
+    void setRoot(Span root) {
+        this.root = root;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return span id of the caller's span from the traceparent header, or null
+     */
+    public String getRemoteParentId() {
+        return remoteParentId;
+    }
+
+    /**
+     * @return true if the caller or the sample rate selected this trace for export
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    /**
+     * @return finished spans in finishing order
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bmslookup.tracing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint showing recently exported traces.
+ *
+ * GET /actuator/traces?limit=20 - newest traces first (id, name, duration, span count)
+ * GET /actuator/traces/{traceId} - spans of one trace in Zipkin v2 JSON
+ */
+@Component
+@Endpoint(id = "traces")
+public class TraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private TraceExporter traceExporter;
+
+    @ReadOperation
+    public List<Map<String, Object>> recent(@Nullable Integer limit) {
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        return traceExporter.recent(max);
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> trace(@Selector String traceId) {
+        return traceExporter.find(traceId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bmslookup.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local trace exporter; no external collector is needed.
+ * Each exported trace is written as one line of Zipkin v2 JSON (an array of
+ * spans) through the TRACES logger, which logback-spring.xml sends to
+ * logs/traces.log, so a line can be posted as-is to a Zipkin /api/v2/spans.
+ * The most recent traces are also kept in memory for the traces actuator endpoint.
+ */
+@Component
+public class TraceExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceExporter.class);
+    private static final Logger traceLog = LoggerFactory.getLogger("TRACES");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Value("${app.tracing.service-name:bms-lookup}")
+    private String serviceName;
+
+    @Value("${app.tracing.log-enabled:true}")
+    private boolean logEnabled;
+
+    @Value("${app.tracing.recent-traces:100}")
+    private int recentTraces;
+
+    private final Deque<Trace> recent = new ArrayDeque<>();
+
+    /**
+     * Called by Tracer when the root span of a trace finishes.
+     */
+    void export(Trace trace) {
+        if (recentTraces > 0) {
+            synchronized (recent) {
+                recent.addFirst(trace);
+                while (recent.size() > recentTraces) {
+                    recent.removeLast();
+                }
+            }
+        }
+        if (logEnabled && traceLog.isInfoEnabled()) {
+            try {
+                traceLog.info(MAPPER.writeValueAsString(toZipkin(trace)));
+            } catch (JsonProcessingException e) {
+                logger.warn("Could not serialize trace {}: {}", trace.getTraceId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Summaries of the most recent exported traces, newest first.
+     */
+    public List<Map<String, Object>> recent(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (recent) {
+            Iterator<Trace> it = recent.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(summary(it.next()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Spans of a recent trace in Zipkin v2 JSON form, or null if it is no longer kept.
+     */
+    public List<Map<String, Object>> find(String traceId) {
+        synchronized (recent) {
+            for (Trace trace : recent) {
+                if (trace.getTraceId().equals(traceId)) {
+                    return toZipkin(trace);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> summary(Trace trace) {
+        Span root = trace.getRoot();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("traceId", trace.getTraceId());
+        result.put("name", root.getName());
+        result.put("timestamp", TimeUnit.MICROSECONDS.toMillis(root.getStartEpochMicros()));
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(root.getDurationNanos()));
+        result.put("spans", trace.getSpans().size());
+        result.put("droppedSpans", trace.getDropped());
+        result.put("error", root.isError());
+        result.put("correlationId", root.getTags().get("correlationId"));
+        return result;
+    }
+
+    private List<Map<String, Object>> toZipkin(Trace trace) {
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("serviceName", serviceName);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Span span : trace.getSpans()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("traceId", trace.getTraceId());
+            if (span.getParentId() != null) {
+                json.put("parentId", span.getParentId());
+            }
+            json.put("id", span.getSpanId());
+            if (span == trace.getRoot()) {
+                json.put("kind", "SERVER");
+            }
+            json.put("name", span.getName());
+            json.put("timestamp", span.getStartEpochMicros());
+            json.put("duration", Math.max(1, TimeUnit.NANOSECONDS.toMicros(span.getDurationNanos())));
+            json.put("localEndpoint", endpoint);
+            Map<String, String> tags = new LinkedHashMap<>(span.getTags());
+            tags.put("thread", span.getThread());
+            if (span == trace.getRoot() && trace.getDropped() > 0) {
+                tags.put("droppedSpans", String.valueOf(trace.getDropped()));
+            }
+            json.put("tags", tags);
+            result.add(json);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.bmslookup.tracing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process tracer for SOAP requests.
+ * UHIEndpoint starts a trace per request, continuing the caller's trace when a
+ * W3C traceparent header is present; services and JDBC statements add child
+ * spans of the span current on their thread. When the root span finishes the
+ * trace goes to {@link TraceExporter} if it was sampled, failed, or ran longer
+ * than app.tracing.always-export-slower-than-ms.
+ *
+ * Every request records its spans so slow and failed requests are never lost
+ * to sampling; the sample rate only limits what healthy requests export.
+ */
+@Component
+public class Tracer {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final String TRACEPARENT_VERSION = "00";
+
+    @Value("${app.tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.tracing.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${app.tracing.always-export-slower-than-ms:5000}")
+    private long alwaysExportSlowerThanMs;
+
+    @Value("${app.tracing.max-spans-per-trace:1000}")
+    private int maxSpansPerTrace;
+
+    @Autowired
+    private TraceExporter exporter;
+
+    /**
+     * Starts the span of a request. Continues the trace already current on this
+     * thread (batch items), else the caller's trace from traceparent, else a new one.
+     *
+     * @param name        span name
+     * @param traceparent incoming W3C traceparent header, may be null
+     * @return the span, current until {@link #finish}
+     */
+    public Span startTrace(String name, String traceparent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        Span current = CURRENT.get();
+        if (current != null) {
+            return startSpan(name);
+        }
+        Trace trace = parseTraceparent(traceparent);
+        if (trace == null) {
+            trace = new Trace(randomId(16), null, ThreadLocalRandom.current().nextDouble() < sampleRate, maxSpansPerTrace);
+        }
+        trace.reserve();
+        Span span = new Span(trace, null, randomId(8), trace.getRemoteParentId(), name);
+        trace.setRoot(span);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Starts a child of the span current on this thread.
+     *
+     * @return the span, current until {@link #finish}; {@link Span#NOOP} outside a trace
+     */
+    public Span startSpan(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null || !parent.getTrace().reserve()) {
+            return Span.NOOP;
+        }
+        Span span = new Span(parent.getTrace(), parent, randomId(8), parent.getSpanId(), name);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Ends a span and makes its parent current again. Ending the root span exports the trace.
+     */
+    public void finish(Span span) {
+        if (!span.end()) {
+            return;
+        }
+        if (CURRENT.get() == span) {
+            restore(span.getParent());
+        }
+        Trace trace = span.getTrace();
+        trace.finished(span);
+        if (trace.getRoot() == span && shouldExport(trace, span)) {
+            exporter.export(trace);
+        }
+    }
+
+    /**
+     * Makes a span current on this thread, e.g. a batch span on a worker thread.
+     *
+     * @return the previously current span, to pass to {@link #restore}
+     */
+    public Span activate(Span span) {
+        Span previous = CURRENT.get();
+        if (span == null || span == Span.NOOP) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span);
+        }
+        return previous;
+    }
+
+    public void restore(Span previous) {
+        activate(previous);
+    }
+
+    /**
+     * @return span current on this thread, or {@link Span#NOOP}
+     */
+    public Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * @return traceparent header value identifying the given span, or null for NOOP
+     */
+    public static String traceparent(Span span) {
+        if (!span.isRecording()) {
+            return null;
+        }
+        return TRACEPARENT_VERSION + '-' + span.getTraceId() + '-' + span.getSpanId() + '-'
+                + (span.getTrace().isSampled() ? "01" : "00");
+    }
+
+    private boolean shouldExport(Trace trace, Span root) {
+        return trace.isSampled()
+                || root.isError()
+                || (alwaysExportSlowerThanMs > 0
+                    && root.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(alwaysExportSlowerThanMs));
+    }
+
+    /**
+     * Parses "00-{32 hex trace id}-{16 hex parent id}-{2 hex flags}".
+     *
+     * @return trace continuing the caller's, or null if the header is missing or malformed
+     */
+    private Trace parseTraceparent(String header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim().toLowerCase(Locale.ROOT);
+        if (value.length() < 55 || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-'
+                || "ff".equals(value.substring(0, 2))) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        String parentId = value.substring(36, 52);
+        String flags = value.substring(53, 55);
+        if (!isHex(traceId) || !isHex(parentId) || !isHex(flags) || isZero(traceId) || isZero(parentId)) {
+            return null;
+        }
+        boolean sampled = (Integer.parseInt(flags, 16) & 1) == 1;
+        return new Trace(traceId, parentId, sampled, maxSpansPerTrace);
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Random non-zero id of the given size in bytes, as lowercase hex.
+     */
+    private static String randomId(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder out = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i += 8) {
+            long value;
+            do {
+                value = random.nextLong();
+            } while (value == 0);
+            String hex = Long.toHexString(value);
+            for (int pad = hex.length(); pad < 16; pad++) {
+                out.append('0');
+            }
+            out.append(hex);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bmslookup.util;
+
+import org.slf4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Logging helper for per-row loops (bulk insert, split, HOF enrollment).
+ * Instead of one INFO line per row it:
+ * - aggregates named counters and emits one summary line when the loop finishes,
+ * - samples per-row detail (first few rows, then every Nth) at DEBUG only,
+ * - rate-limits per-row warnings and reports how many were suppressed.
+ *
+ * One instance per loop invocation; not thread-safe.
+ */
+public class LoopLogger {
+
+    private static final int SAMPLE_FIRST = 3;
+    private static final int SAMPLE_EVERY = 100;
+    private static final int MAX_WARNINGS = 5;
+
+    private final Logger logger;
+    private final String operation;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, long[]> counters = new LinkedHashMap<>();
+    private final boolean debugEnabled;
+    private long items;
+    private int warnings;
+    private int suppressedWarnings;
+
+    private LoopLogger(Logger logger, String operation) {
+        this.logger = logger;
+        this.operation = operation;
+        this.debugEnabled = logger.isDebugEnabled();
+    }
+
+    /**
+     * Starts tracking a loop.
+     *
+     * @param logger    logger of the calling class
+     * @param operation short description used in the summary, e.g. "bulk insert bms_City_lkp"
+     * @return loop logger
+     */
+    public static LoopLogger start(Logger logger, String operation) {
+        return new LoopLogger(logger, operation);
+    }
+
+    /**
+     * Marks the start of the next row.
+     *
+     * @return true if this row's detail should be logged (DEBUG enabled and row is sampled)
+     */
+    public boolean nextItem() {
+        items++;
+        return isSampled();
+    }
+
+    /**
+     * Whether detail for the current row should be logged.
+     */
+    public boolean isSampled() {
+        return debugEnabled && (items <= SAMPLE_FIRST || items % SAMPLE_EVERY == 0);
+    }
+
+    /**
+     * Logs row detail at DEBUG if the current row is sampled.
+     */
+    public void debug(String format, Object... arguments) {
+        if (isSampled()) {
+            logger.debug("[" + operation + " #" + items + "] " + format, arguments);
+        }
+    }
+
+    public void count(String counter) {
+        count(counter, 1);
+    }
+
+    public void count(String counter, long delta) {
+        long[] value = counters.get(counter);
+        if (value == null) {
+            counters.put(counter, new long[] {delta});
+        } else {
+            value[0] += delta;
+        }
+    }
+
+    /**
+     * Logs a per-row warning, up to a fixed number per loop; the rest are only counted.
+     */
+    public void warn(String format, Object... arguments) {
+        if (warnings < MAX_WARNINGS) {
+            warnings++;
+            logger.warn(format, arguments);
+        } else {
+            suppressedWarnings++;
+        }
+    }
+
+    /**
+     * Emits the single summary line for the loop.
+     */
+    public void finish() {
+        StringBuilder summary = new StringBuilder(operation)
+                .append(": ").append(items).append(" items in ")
+                .append((System.nanoTime() - startNanos) / 1000000).append("ms");
+        for (Map.Entry<String, long[]> counter : counters.entrySet()) {
+            summary.append(", ").append(counter.getKey()).append('=').append(counter.getValue()[0]);
+        }
+        if (suppressedWarnings > 0) {
+            summary.append(", suppressed warnings=").append(suppressedWarnings);
+        }
+        logger.info(summary.toString());
+    }
+}
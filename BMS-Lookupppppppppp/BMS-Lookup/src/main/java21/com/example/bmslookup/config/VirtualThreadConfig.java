@@ -0,0 +1,71 @@
+package com.example.bmslookup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Virtual-thread execution for Tomcat request handling and the service layer.
+ * Only compiled by the java21 Maven profile (src/main/java21).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    private final ExecutorService soapVirtualThreads =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("soap-vt-", 0).factory());
+
+    /**
+     * Runs every Tomcat request on its own virtual thread.
+     *
+     * @return protocol handler customizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        logger.info("Configuring Tomcat to run requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Virtual-thread replacement for the bounded SOAP executor.
+     * Tasks park on a semaphore sized to the Hikari pool, so DB concurrency
+     * stays bounded while waiting costs no platform thread.
+     *
+     * @return executor used by the async SOAP dispatch mode
+     */
+    @Bean(name = "soapExecutor")
+    public AsyncTaskExecutor soapExecutor() {
+        logger.info("Configuring virtual-thread SOAP executor: permits={}", maximumPoolSize);
+
+        Semaphore permits = new Semaphore(maximumPoolSize);
+        return new TaskExecutorAdapter(task -> soapVirtualThreads.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        soapVirtualThreads.shutdown();
+    }
+}